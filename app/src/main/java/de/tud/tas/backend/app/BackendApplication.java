@@ -22,8 +22,6 @@ import java.time.Clock;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
-import org.springframework.core.task.SimpleAsyncTaskExecutor;
-import org.springframework.core.task.TaskExecutor;
 import org.springframework.web.reactive.function.client.WebClient;
 
 @SpringBootApplication
@@ -42,9 +40,4 @@ public class BackendApplication {
     public WebClient webClient() {
         return WebClient.create();
     }
-
-    @Bean(name = "simpleAsyncTaskExecutor")
-    public TaskExecutor taskExecutor() {
-        return new SimpleAsyncTaskExecutor();
-    }
 }
@@ -22,20 +22,36 @@ import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.app.model.UserLanguage;
 import de.tud.tas.backend.app.model.UserRole;
 import de.tud.tas.backend.app.service.AuthService;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.api.ProvisioningApi;
+import io.netty.channel.ChannelOption;
 import lombok.RequiredArgsConstructor;
+import org.apache.http.client.HttpClient;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.client.BufferingClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 
+import java.io.IOException;
 import java.time.Duration;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @RequiredArgsConstructor
@@ -50,6 +66,36 @@ public class ApiClientsConfig {
     private String learningLockerPassword;
     @Value("${tud-assistance-backbone.url}")
     private String tudAssistanceBackboneUrl;
+    /**
+     * Maximum number of pooled connections of each API client.
+     */
+    @Value("${tas-backend.http-client.pool.max-total}")
+    private Integer httpClientPoolMaxTotal;
+    /**
+     * Maximum number of pooled connections of each API client to a single host.
+     */
+    @Value("${tas-backend.http-client.pool.max-per-route}")
+    private Integer httpClientPoolMaxPerRoute;
+    /**
+     * Time in seconds after which idle connections are evicted from the pool.
+     */
+    @Value("${tas-backend.http-client.pool.idle-timeout}")
+    private Long httpClientPoolIdleTimeout;
+    /**
+     * Time in seconds to wait for a free connection of the pool before the request fails.
+     */
+    @Value("${tas-backend.http-client.pool.acquire-timeout}")
+    private Long httpClientPoolAcquireTimeout;
+    /**
+     * Time in seconds a connection is kept alive if the server does not specify it.
+     */
+    @Value("${tas-backend.http-client.keep-alive}")
+    private Long httpClientKeepAlive;
+    /**
+     * Whether request and response bodies are buffered, which allows to read them more than once for debugging.
+     */
+    @Value("${tas-backend.http-client.buffering.enabled}")
+    private boolean httpClientBufferingEnabled;
 
     private final AuthService authService;
 
@@ -71,12 +117,88 @@ public class ApiClientsConfig {
         return apiClient;
     }
 
+    @Bean
+    public RestTemplate tudAssistanceBackboneRestTemplate(ObjectMapper objectMapper) {
+        return getRestTemplate(objectMapper);
+    }
+
     @Bean
     public de.tud.tas.backend.tud_assistance_backbone_api_client.ApiClient tudAssistanceBackboneApiClient(
-            ObjectMapper objectMapper) {
+            RestTemplate tudAssistanceBackboneRestTemplate) {
+        return getTudAssistanceBackboneApiClient(tudAssistanceBackboneRestTemplate);
+    }
+
+    // The supported assistance types are requested conditionally, which requires default headers of an own client
+    @Bean
+    public ProvisioningApi conditionalProvisioningApi(ObjectMapper objectMapper) {
+        RestTemplate restTemplate = getRestTemplate(objectMapper);
+        // The generated client rejects a 304 with a plain RestClientException, so it is reported with its status
+        restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) throws IOException {
+                return response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value() || super.hasError(response);
+            }
+
+            @Override
+            public void handleError(ClientHttpResponse response) throws IOException {
+                if (response.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value()) {
+                    throw new RestClientResponseException(HttpStatus.NOT_MODIFIED.toString(),
+                            response.getRawStatusCode(), response.getStatusText(), response.getHeaders(), null,
+                            null);
+                }
+                super.handleError(response);
+            }
+        });
+        return new ProvisioningApi(getTudAssistanceBackboneApiClient(restTemplate));
+    }
+
+    @Bean
+    public de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient
+    tudAssistanceBackboneReactiveApiClient(ObjectMapper objectMapper) {
+        WebClient webClient = de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient
+                .buildWebClientBuilder(objectMapper.copy())
+                .clientConnector(new ReactorClientHttpConnector(reactor.netty.http.client.HttpClient.create()
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 8000)
+                        .responseTimeout(Duration.ofSeconds(8))))
+                .build();
+        de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient apiClient =
+                new de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient(webClient, objectMapper,
+                        de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient
+                                .createDefaultDateFormat());
+        apiClient.setBasePath(tudAssistanceBackboneUrl);
+
+        de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.auth.HttpBearerAuth bearerAuth =
+                (de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.auth.HttpBearerAuth) apiClient
+                        .getAuthentication("bearerAuth");
+        bearerAuth.setBearerToken(authService.createLongLivedJwt(
+                new User(UUID.randomUUID(), "tud_tas_backend", UserLanguage.EN, UserRole.ADMIN),
+                UUID.randomUUID()));
+        return apiClient;
+    }
+
+    // The reactive APIs are not component scanned since their names clash with the blocking ones
+    @Bean
+    public de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.api.ExpertModuleApi reactiveExpertModuleApi(
+            de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient
+                    tudAssistanceBackboneReactiveApiClient) {
+        return new de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.api.ExpertModuleApi(
+                tudAssistanceBackboneReactiveApiClient);
+    }
+
+    @Bean
+    public de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.api.TutorialModuleApi
+    reactiveTutorialModuleApi(
+            de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.ApiClient
+                    tudAssistanceBackboneReactiveApiClient) {
+        return new de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.api.TutorialModuleApi(
+                tudAssistanceBackboneReactiveApiClient);
+    }
+
+    private de.tud.tas.backend.tud_assistance_backbone_api_client.ApiClient getTudAssistanceBackboneApiClient(
+            RestTemplate tudAssistanceBackboneRestTemplate) {
         de.tud.tas.backend.tud_assistance_backbone_api_client.ApiClient apiClient =
                 new de.tud.tas.backend.tud_assistance_backbone_api_client.ApiClient(
-                        getRestTemplate(objectMapper));
+                        tudAssistanceBackboneRestTemplate);
         apiClient.setBasePath(tudAssistanceBackboneUrl);
 
         de.tud.tas.backend.tud_assistance_backbone_api_client.auth.HttpBearerAuth bearerAuth =
@@ -88,13 +210,16 @@ public class ApiClientsConfig {
         return apiClient;
     }
 
-    private static RestTemplate getRestTemplate(ObjectMapper objectMapper) {
+    private RestTemplate getRestTemplate(ObjectMapper objectMapper) {
         RestTemplate restTemplate = new RestTemplateBuilder()
+                .requestFactory(this::getHttpRequestFactory)
                 .setConnectTimeout(Duration.ofSeconds(8))
                 .setReadTimeout(Duration.ofSeconds(8))
                 .build();
-        // This allows us to read the response more than once - Necessary for debugging.
-        restTemplate.setRequestFactory(new BufferingClientHttpRequestFactory(restTemplate.getRequestFactory()));
+        if (httpClientBufferingEnabled) {
+            // This allows us to read the response more than once - Necessary for debugging.
+            restTemplate.setRequestFactory(new BufferingClientHttpRequestFactory(restTemplate.getRequestFactory()));
+        }
 
         // disable default URL encoding
         DefaultUriBuilderFactory uriBuilderFactory = new DefaultUriBuilderFactory();
@@ -105,4 +230,28 @@ public class ApiClientsConfig {
         restTemplate.getMessageConverters().add(0, httpMessageConverter);
         return restTemplate;
     }
+
+    private HttpComponentsClientHttpRequestFactory getHttpRequestFactory() {
+        HttpComponentsClientHttpRequestFactory requestFactory =
+                new HttpComponentsClientHttpRequestFactory(getHttpClient());
+        // Otherwise, callers wait forever for a connection if the pool is exhausted
+        requestFactory.setConnectionRequestTimeout((int) TimeUnit.SECONDS.toMillis(httpClientPoolAcquireTimeout));
+        return requestFactory;
+    }
+
+    private HttpClient getHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(httpClientPoolMaxTotal);
+        connectionManager.setDefaultMaxPerRoute(httpClientPoolMaxPerRoute);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return keepAlive > 0 ? keepAlive : TimeUnit.SECONDS.toMillis(httpClientKeepAlive);
+        };
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(httpClientPoolIdleTimeout, TimeUnit.SECONDS)
+                .build();
+    }
 }
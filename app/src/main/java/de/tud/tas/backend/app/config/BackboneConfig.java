@@ -18,22 +18,16 @@
 package de.tud.tas.backend.app.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import de.tud.tas.backend.app.handler.StompEventHandler;
-import de.tud.tas.backend.app.model.UserRole;
-import de.tud.tas.backend.app.service.AssistanceCommunicationService;
-import de.tud.tas.backend.app.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.AsyncListenableTaskExecutor;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
-import org.springframework.messaging.simp.stomp.StompHeaders;
-import org.springframework.messaging.simp.stomp.StompSessionHandler;
 import org.springframework.scheduling.TaskScheduler;
-import org.springframework.web.socket.WebSocketHttpHeaders;
-import org.springframework.web.socket.client.WebSocketClient;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 
@@ -50,22 +44,27 @@ public class BackboneConfig {
      */
     @Value("${stomp.outgoing.heartbeat.interval:0}")
     private Integer outgoingHeartbeatInterval;
-    @Value("${tud-assistance-backbone.url}")
-    private String tudAssistanceBackboneUrl;
 
-    private final AssistanceCommunicationService assistanceCommunicationService;
-    private final AuthService authService;
     private final ObjectMapper objectMapper;
     private TaskScheduler messageBrokerTaskScheduler;
+    private AsyncListenableTaskExecutor backboneStompClientTaskExecutor;
 
     @Autowired
     public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler taskScheduler) {
         messageBrokerTaskScheduler = taskScheduler;
     }
 
+    @Autowired
+    public void setBackboneStompClientTaskExecutor(
+            @Qualifier("backboneStompClientTaskExecutor") AsyncListenableTaskExecutor taskExecutor) {
+        backboneStompClientTaskExecutor = taskExecutor;
+    }
+
     @Bean
     public WebSocketStompClient backboneStompClient() {
-        WebSocketClient webSocketClient = new StandardWebSocketClient();
+        StandardWebSocketClient webSocketClient = new StandardWebSocketClient();
+        // By default, a new thread would be created for each connection attempt
+        webSocketClient.setTaskExecutor(backboneStompClientTaskExecutor);
         WebSocketStompClient stompClient = new WebSocketStompClient(webSocketClient);
 
         MappingJackson2MessageConverter mappingJackson2MessageConverter = new MappingJackson2MessageConverter();
@@ -75,15 +74,7 @@ public class BackboneConfig {
         stompClient.setDefaultHeartbeat(new long[]{outgoingHeartbeatInterval, incomingHeartbeatInterval});
         stompClient.setTaskScheduler(messageBrokerTaskScheduler);
 
-        StompHeaders stompHeaders = new StompHeaders();
-        stompHeaders.add("token", authService.createJwt("tud_tas_backend", UserRole.ADMIN));
-
-        String websocketUrl = tudAssistanceBackboneUrl
-                .replaceFirst("http://", "ws://")
-                .replaceFirst("https://", "wss://") + "/api/v1/websocket";
-
-        StompSessionHandler sessionHandler = new StompEventHandler(assistanceCommunicationService);
-        stompClient.connect(websocketUrl, (WebSocketHttpHeaders) null, stompHeaders, sessionHandler);
+        // The connection is established and maintained by the BackboneConnectionService
         return stompClient;
     }
 }
@@ -0,0 +1,75 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.config;
+
+import de.tud.tas.backend.app.model.ClusterMessage;
+import de.tud.tas.backend.app.model.HandledAssistanceObject;
+import de.tud.tas.backend.app.model.User;
+import de.tud.tas.backend.app.model.WebSocketConnection;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+    @Value("${tas-backend.cluster.enabled}")
+    private boolean clusterEnabled;
+    @Value("${tas-backend.cluster.connection.refresh.interval}")
+    private Long connectionRefreshInterval;
+    @Value("${tas-backend.assistance.handled.ttl}")
+    private Long handledAssistanceTtl;
+
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * Creates the indexes that are required for lookups on hot paths, since the automatic index creation is disabled.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        // Used to check for revoked long-lived tokens on every request authenticated with one
+        mongoTemplate.indexOps(User.class).ensureIndex(new Index("longLivedTokenId", Sort.Direction.ASC)
+                .named("longLivedTokenId")
+                .sparse());
+        // The IDs of handled assistance objects are only kept as long as the same objects may be received or replayed
+        // again
+        mongoTemplate.indexOps(HandledAssistanceObject.class).ensureIndex(
+                new Index("handledTimestamp", Sort.Direction.ASC)
+                        .named("handledTimestamp")
+                        .expire(handledAssistanceTtl));
+
+        if (clusterEnabled) {
+            // Used to route messages to the instances a user is connected to
+            mongoTemplate.indexOps(WebSocketConnection.class).ensureIndex(new Index("userName", Sort.Direction.ASC)
+                    .named("userName"));
+            // Connections of instances that stopped without unregistering them expire
+            mongoTemplate.indexOps(WebSocketConnection.class).ensureIndex(
+                    new Index("lastSeenTimestamp", Sort.Direction.ASC)
+                            .named("lastSeenTimestamp")
+                            .expire(connectionRefreshInterval * 3));
+            mongoTemplate.indexOps(ClusterMessage.class).ensureIndex(new Index("createdTimestamp", Sort.Direction.ASC)
+                    .named("createdTimestamp")
+                    .expire(60));
+        }
+    }
+}
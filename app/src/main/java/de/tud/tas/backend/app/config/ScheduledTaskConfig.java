@@ -24,8 +24,11 @@ import de.tud.tas.backend.app.repository.UserRepository;
 import de.tud.tas.backend.app.repository.WebSocketDisconnectRepository;
 import de.tud.tas.backend.app.service.AssistanceCommunicationService;
 import de.tud.tas.backend.app.service.AssistanceTypeService;
+import de.tud.tas.backend.app.service.BackboneConnectionService;
 import de.tud.tas.backend.app.service.CourseService;
-import de.tud.tas.backend.learning_locker_api_client.api.StatementsApi;
+import de.tud.tas.backend.app.service.LearningRecordStoreService;
+import de.tud.tas.backend.app.service.SupportedAssistanceTypeService;
+import de.tud.tas.backend.app.service.WebSocketConnectionService;
 import de.tud.tas.backend.learning_locker_api_client.model.Statement;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
@@ -46,11 +49,14 @@ import java.util.stream.StreamSupport;
 public class ScheduledTaskConfig {
     private final AssistanceCommunicationService assistanceCommunicationService;
     private final AssistanceTypeService assistanceTypeService;
+    private final BackboneConnectionService backboneConnectionService;
     private final CourseService courseService;
+    private final LearningRecordStoreService learningRecordStoreService;
     private final StatementFactory statementFactory;
-    private final StatementsApi statementsApi;
+    private final SupportedAssistanceTypeService supportedAssistanceTypeService;
     private final TimeProvider timeProvider;
     private final UserRepository userRepository;
+    private final WebSocketConnectionService webSocketConnectionService;
     private final WebSocketDisconnectRepository webSocketDisconnectRepository;
 
     private static final Logger log = LoggerFactory.getLogger(ScheduledTaskConfig.class);
@@ -82,12 +88,23 @@ public class ScheduledTaskConfig {
                         "loggedout",
                         disconnectedUser.getLastLoggedInLmsUrl()))
                 .toList();
+        learningRecordStoreService.storeStatements(loggedOutStatements);
+        webSocketDisconnectRepository.deleteAll(expiredWebSocketDisconnects);
+    }
+
+    @Scheduled(fixedRateString = "${tas-backend.cluster.connection.refresh.interval}", timeUnit = TimeUnit.SECONDS)
+    public void scheduleRefreshOfWebSocketConnections() {
         try {
-            statementsApi.storeStatements(loggedOutStatements);
+            webSocketConnectionService.refreshConnections();
         } catch (Exception e) {
-            log.error("Sending of logout statement to Learning Locker failed!");
+            log.error("Failed to refresh WebSocket connections - {}!", e.getMessage());
         }
-        webSocketDisconnectRepository.deleteAll(expiredWebSocketDisconnects);
+    }
+
+    @Scheduled(fixedRateString = "${tas-backend.cluster.connection.refresh.interval}",
+            initialDelayString = "${tas-backend.cluster.connection.refresh.interval}", timeUnit = TimeUnit.SECONDS)
+    public void scheduleRenewalOfBackboneSubscriptionLease() {
+        backboneConnectionService.renewSubscriptionLease();
     }
 
     @Scheduled(fixedRate = 1, timeUnit = TimeUnit.DAYS)
@@ -99,6 +116,15 @@ public class ScheduledTaskConfig {
         }
     }
 
+    @Scheduled(fixedDelayString = "${tas-backend.assistance-types.refresh.interval}", timeUnit = TimeUnit.SECONDS)
+    public void scheduleRefreshOfSupportedAssistanceTypes() {
+        try {
+            supportedAssistanceTypeService.refreshSupportedAssistanceTypes();
+        } catch (Exception e) {
+            log.error("Failed to refresh supported assistance types - {}!", e.getMessage());
+        }
+    }
+
     @Scheduled(fixedRate = 1, timeUnit = TimeUnit.DAYS)
     public void scheduleSyncOfCourses() {
         try {
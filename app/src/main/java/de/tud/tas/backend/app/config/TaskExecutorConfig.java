@@ -0,0 +1,140 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.config;
+
+import de.tud.tas.backend.app.util.PartitionedTaskExecutor;
+import de.tud.tas.backend.app.util.TaskExecutorHelper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class TaskExecutorConfig {
+    /**
+     * Number of workers that drain the statement queue if statements are ingested asynchronously.
+     */
+    @Value("${tas-backend.statement.ingestion.workers}")
+    private Integer statementIngestionWorkers;
+    /**
+     * Maximum number of statements of a batch that are forwarded to the TUD Assistance Backbone in parallel.
+     */
+    @Value("${tas-backend.statement.processing.parallelism}")
+    private Integer statementProcessingParallelism;
+    /**
+     * Number of threads that open the connections to the TUD Assistance Backbone.
+     */
+    @Value("${tas-backend.backbone.stomp.pool.size}")
+    private Integer backboneStompPoolSize;
+    @Value("${tas-backend.backbone.stomp.queue.capacity}")
+    private Integer backboneStompQueueCapacity;
+    @Value("${tas-backend.backbone.stomp.rejection.policy}")
+    private String backboneStompRejectionPolicy;
+    /**
+     * Number of single-threaded workers that handle the assistance. The assistance of a user is always handled by the
+     * same worker.
+     */
+    @Value("${tas-backend.assistance.dispatch.partitions}")
+    private Integer assistanceDispatchPartitions;
+    @Value("${tas-backend.assistance.dispatch.queue.capacity}")
+    private Integer assistanceDispatchQueueCapacity;
+
+    /**
+     * The auto-configured executor backs off as soon as any executor is defined, so it is created here with the
+     * bounds of the spring.task.execution properties instead.
+     *
+     * @param taskExecutorBuilder The builder configured by the spring.task.execution properties
+     * @return the executor for asynchronous request processing
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public ThreadPoolTaskExecutor applicationTaskExecutor(TaskExecutorBuilder taskExecutorBuilder) {
+        return taskExecutorBuilder.build();
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor clusterMessageListenerTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(1);
+        taskExecutor.setMaxPoolSize(1);
+        taskExecutor.setQueueCapacity(0);
+        taskExecutor.setThreadNamePrefix("cluster-message-listener-");
+        return taskExecutor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor backboneStompClientTaskExecutor() {
+        return TaskExecutorHelper.createBoundedTaskExecutor("backbone-stomp-client-", backboneStompPoolSize,
+                backboneStompQueueCapacity, backboneStompRejectionPolicy);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor backboneReplayTaskExecutor() {
+        // Replays only follow a reconnect, so they are handled one after another
+        return TaskExecutorHelper.createBoundedTaskExecutor("backbone-replay-", 1, 16, "abort");
+    }
+
+    @Bean
+    public PartitionedTaskExecutor assistanceDispatchTaskExecutor() {
+        return new PartitionedTaskExecutor("assistance-dispatch", assistanceDispatchPartitions,
+                assistanceDispatchQueueCapacity);
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor statementIngestionTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(statementIngestionWorkers);
+        taskExecutor.setMaxPoolSize(statementIngestionWorkers);
+        taskExecutor.setQueueCapacity(0);
+        taskExecutor.setThreadNamePrefix("statement-ingestion-");
+        // Let the workers drain the remaining statements on shutdown
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.setAwaitTerminationSeconds(30);
+        return taskExecutor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor statementProcessingTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(statementProcessingParallelism);
+        taskExecutor.setMaxPoolSize(statementProcessingParallelism);
+        taskExecutor.setQueueCapacity(statementProcessingParallelism * 16);
+        taskExecutor.setThreadNamePrefix("statement-processing-");
+        // Throttle the submitting thread instead of rejecting statements if the backbone can not keep up
+        taskExecutor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return taskExecutor;
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor learningRecordStoreTaskExecutor() {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(1);
+        taskExecutor.setMaxPoolSize(1);
+        taskExecutor.setQueueCapacity(0);
+        taskExecutor.setThreadNamePrefix("learning-locker-forwarding-");
+        // Let the forwarding finish the batch it is currently sending on shutdown
+        taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+        taskExecutor.setAwaitTerminationSeconds(30);
+        return taskExecutor;
+    }
+}
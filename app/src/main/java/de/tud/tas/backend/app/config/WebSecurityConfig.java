@@ -23,6 +23,8 @@ import de.tud.tas.backend.app.service.UserService;
 import de.tud.tas.backend.app.model.UserRole;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -63,6 +65,11 @@ public class WebSecurityConfig {
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .oauth2ResourceServer(OAuth2ResourceServerConfigurer::jwt)
                 .addFilterAfter(longLivedJwtFilter, BearerTokenAuthenticationFilter.class)
+                // The actuator endpoints except for the health endpoint expose internals and are restricted to admins
+                .authorizeRequests(requests -> requests
+                        .requestMatchers(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class))
+                        .hasRole(UserRole.ADMIN.name())
+                        .anyRequest().permitAll())
                 .httpBasic().and()
                 .build();
     }
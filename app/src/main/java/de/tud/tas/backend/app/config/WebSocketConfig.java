@@ -17,6 +17,7 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.config;
 
+import de.tud.tas.backend.app.util.TaskExecutorHelper;
 import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -65,6 +66,42 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Value("${stomp.incoming.heartbeat.interval:0}")
     private Integer incomingHeartbeatInterval;
 
+    /**
+     * Number of threads that handle the STOMP frames received from the clients.
+     */
+    @Value("${tas-backend.stomp.inbound.pool.size}")
+    private Integer inboundPoolSize;
+    @Value("${tas-backend.stomp.inbound.queue.capacity}")
+    private Integer inboundQueueCapacity;
+    @Value("${tas-backend.stomp.inbound.rejection.policy}")
+    private String inboundRejectionPolicy;
+
+    /**
+     * Number of threads that deliver the STOMP frames to the clients.
+     */
+    @Value("${tas-backend.stomp.outbound.pool.size}")
+    private Integer outboundPoolSize;
+    @Value("${tas-backend.stomp.outbound.queue.capacity}")
+    private Integer outboundQueueCapacity;
+    @Value("${tas-backend.stomp.outbound.rejection.policy}")
+    private String outboundRejectionPolicy;
+
+    /**
+     * Whether the messages are relayed to an external STOMP broker, which allows running multiple instances.
+     */
+    @Value("${tas-backend.stomp.broker.relay.enabled}")
+    private boolean brokerRelayEnabled;
+    @Value("${tas-backend.stomp.broker.relay.host}")
+    private String brokerRelayHost;
+    @Value("${tas-backend.stomp.broker.relay.port}")
+    private Integer brokerRelayPort;
+    @Value("${tas-backend.stomp.broker.relay.login}")
+    private String brokerRelayLogin;
+    @Value("${tas-backend.stomp.broker.relay.passcode}")
+    private String brokerRelayPasscode;
+    @Value("${tas-backend.stomp.broker.relay.virtual-host}")
+    private String brokerRelayVirtualHost;
+
     private TaskScheduler messageBrokerTaskScheduler;
 
     @Autowired
@@ -79,14 +116,41 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        registry.setPreservePublishOrder(true)
-                .enableSimpleBroker("/queue")
-                .setHeartbeatValue(new long[]{outgoingHeartbeatInterval, incomingHeartbeatInterval})
-                .setTaskScheduler(messageBrokerTaskScheduler);
+        registry.setPreservePublishOrder(true);
+        if (!brokerRelayEnabled) {
+            registry.enableSimpleBroker("/queue")
+                    .setHeartbeatValue(new long[]{outgoingHeartbeatInterval, incomingHeartbeatInterval})
+                    .setTaskScheduler(messageBrokerTaskScheduler);
+            return;
+        }
+        // The sessions of the users are shared via the broker, so messages to users that are connected to another
+        // instance are delivered as well. Messages must therefore be sent by one instance only, e.g., the assistance
+        // pushed by the Backbone is only handled by the instance holding the subscription lease in cluster mode.
+        registry.enableStompBrokerRelay("/queue", "/topic")
+                .setRelayHost(brokerRelayHost)
+                .setRelayPort(brokerRelayPort)
+                .setClientLogin(brokerRelayLogin)
+                .setClientPasscode(brokerRelayPasscode)
+                .setSystemLogin(brokerRelayLogin)
+                .setSystemPasscode(brokerRelayPasscode)
+                .setVirtualHost(brokerRelayVirtualHost.isEmpty() ? null : brokerRelayVirtualHost)
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/simp-user-registry");
+    }
+
+    @Override
+    public void configureClientOutboundChannel(ChannelRegistration registration) {
+        registration.taskExecutor(TaskExecutorHelper.createBoundedTaskExecutor(outboundPoolSize,
+                outboundQueueCapacity, outboundRejectionPolicy));
     }
 
     @Override
     public void configureClientInboundChannel(ChannelRegistration registration) {
+        // The executors are exposed and initialized as the clientInboundChannelExecutor and
+        // clientOutboundChannelExecutor beans, whose threads are named clientInboundChannel-N and
+        // clientOutboundChannel-N
+        registration.taskExecutor(TaskExecutorHelper.createBoundedTaskExecutor(inboundPoolSize,
+                inboundQueueCapacity, inboundRejectionPolicy));
         registration.interceptors(new ChannelInterceptor() {
             @Override
             public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
@@ -17,23 +17,36 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import de.tud.tas.backend.app.dto.CourseAssistanceTypeDto;
 import de.tud.tas.backend.app.dto.CourseDto;
 import de.tud.tas.backend.app.dto.CourseFeatureDto;
+import de.tud.tas.backend.app.exceptions.InvalidPaginationException;
 import de.tud.tas.backend.app.mapper.CourseAssistanceTypeMapper;
 import de.tud.tas.backend.app.mapper.CourseFeatureMapper;
 import de.tud.tas.backend.app.service.CourseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 @RestController
@@ -45,6 +58,13 @@ public class CourseController {
     private final CourseAssistanceTypeMapper courseAssistanceTypeMapper;
     private final CourseFeatureMapper courseFeatureMapper;
     private final CourseService courseService;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Number of courses that are requested from the TUD Assistance Backbone at once if all courses are streamed.
+     */
+    @Value("${tas-backend.courses.listing.page.size}")
+    private Integer courseListingPageSize;
 
     @GetMapping(path = "/{objectId}", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
@@ -59,9 +79,46 @@ public class CourseController {
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
     @Operation(operationId = "getCourses",
-            summary = "The function to retrieve all courses as a list.")
-    public List<CourseDto> getAllCourses() {
-        return courseService.getAllCourseDtos();
+            summary = "The function to retrieve all courses as a list.",
+            description = "If no page is requested, the courses are requested page by page from the TUD " +
+                    "Assistance Backbone and streamed to the client.")
+    @ApiResponse(responseCode = "200", content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+            array = @ArraySchema(schema = @Schema(implementation = CourseDto.class))))
+    @Parameter(name = "page", in = ParameterIn.QUERY,
+            description = "The page that should be delivered. The default value is one.")
+    @Parameter(name = "objectsPerPage", in = ParameterIn.QUERY,
+            description = "The number of courses that should be delivered per page. If this is not specified, all " +
+                    "courses are delivered. This has to be specified when a page number is specified.")
+    public ResponseEntity<StreamingResponseBody> getAllCourses(@RequestParam(required = false) Integer page,
+                                                               @RequestParam(required = false) Integer objectsPerPage) {
+        if ((page != null && (objectsPerPage == null || page < 1)) || (objectsPerPage != null && objectsPerPage < 1)) {
+            throw new InvalidPaginationException();
+        }
+        // The first page is loaded before the response is committed, so that failures still result in an error status
+        final Iterator<List<CourseDto>> remainingCoursePages;
+        final List<CourseDto> firstCoursePage;
+        if (page == null && objectsPerPage == null) {
+            remainingCoursePages = courseService.getCourseDtoPages(courseListingPageSize);
+            firstCoursePage = remainingCoursePages.hasNext() ? remainingCoursePages.next() : List.of();
+        } else {
+            remainingCoursePages = Collections.emptyIterator();
+            firstCoursePage = courseService.getAllCourseDtos(page, objectsPerPage);
+        }
+
+        StreamingResponseBody responseBody = outputStream -> {
+            JsonGenerator jsonGenerator = objectMapper.createGenerator(outputStream);
+            // If a later page fails, the array must stay open and the generator must not be closed, so that the
+            // response is aborted instead of being completed as a truncated but valid list
+            jsonGenerator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+            jsonGenerator.writeStartArray();
+            writeCourseDtos(jsonGenerator, firstCoursePage);
+            while (remainingCoursePages.hasNext()) {
+                writeCourseDtos(jsonGenerator, remainingCoursePages.next());
+            }
+            jsonGenerator.writeEndArray();
+            jsonGenerator.close();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(responseBody);
     }
 
     @GetMapping(path = "/{objectId}/features", produces = MediaType.APPLICATION_JSON_VALUE)
@@ -124,4 +181,11 @@ public class CourseController {
                 .map(courseAssistanceTypeMapper::toCourseAssistanceTypeDto)
                 .toList();
     }
+
+    private void writeCourseDtos(JsonGenerator jsonGenerator, List<CourseDto> courseDtos) throws IOException {
+        for (CourseDto courseDto : courseDtos) {
+            jsonGenerator.writeObject(courseDto);
+        }
+        jsonGenerator.flush();
+    }
 }
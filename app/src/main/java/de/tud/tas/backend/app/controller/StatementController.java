@@ -18,6 +18,13 @@
 package de.tud.tas.backend.app.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tud.tas.backend.app.dto.StatementProcessingErrorDto;
+import de.tud.tas.backend.app.exceptions.InvalidStatementException;
+import de.tud.tas.backend.app.exceptions.StatementProcessingException;
+import de.tud.tas.backend.app.service.ReactiveTudAssistanceBackboneService;
+import de.tud.tas.backend.app.service.StatementIngestionService;
 import de.tud.tas.backend.app.service.TudAssistanceBackboneService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -25,8 +32,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @SecurityRequirement(name = "bearerAuth")
@@ -34,15 +46,75 @@ import org.springframework.web.bind.annotation.*;
 @Tag(name = "Statement Controller", description = "The API to forward statements to the TUD Assistance Backbone.")
 @RequiredArgsConstructor
 public class StatementController {
+    private final ObjectMapper objectMapper;
+    private final ReactiveTudAssistanceBackboneService reactiveTudAssistanceBackboneService;
+    private final StatementIngestionService statementIngestionService;
     private final TudAssistanceBackboneService tudAssistanceBackboneService;
 
     @PostMapping(produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('STATEMENT_SENDER') || hasRole('ADMIN')")
-    @ResponseStatus(HttpStatus.CREATED)
     @Operation(operationId = "processStatement",
-            summary = "The function to send a statement that should be processed.")
+            summary = "The function to send a statement that should be processed.",
+            description = "If the asynchronous statement ingestion is enabled, the statement is queued and the " +
+                    "function responds with 202. If the queue is full, the statement is rejected with 503. If the non-blocking " +
+                    "statement processing is enabled, the request thread is released while the TUD Assistance " +
+                    "Backbone processes the statement.")
     @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "The statement that should be processed.", required = true)
-    public void handleStatement(@RequestBody JsonNode statement) {
+    public Mono<ResponseEntity<Void>> handleStatement(@RequestBody JsonNode statement) {
+        if (statementIngestionService.isEnabled()) {
+            statementIngestionService.acceptStatement(statement);
+            return Mono.just(ResponseEntity.status(HttpStatus.ACCEPTED).build());
+        }
+        if (reactiveTudAssistanceBackboneService.isEnabled()) {
+            return reactiveTudAssistanceBackboneService.handleStatement(statement)
+                    .then(Mono.just(ResponseEntity.status(HttpStatus.CREATED).build()));
+        }
         tudAssistanceBackboneService.handleStatement(statement);
+        return Mono.just(ResponseEntity.status(HttpStatus.CREATED).build());
+    }
+
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('STATEMENT_SENDER') || hasRole('ADMIN')")
+    @Operation(operationId = "processStatements",
+            summary = "The function to send multiple statements that should be processed.",
+            description = "The configuration of each distinct course is resolved only once per batch and the " +
+                    "statements of different learners are processed in parallel. If the asynchronous statement " +
+                    "ingestion is enabled, the statements are queued and the function responds with 202. If the " +
+                    "queue can not hold all statements, they are rejected with 503, and with 413 if they exceed the " +
+                    "capacity of the queue. If some statements can not be processed, the function responds with 502 and the IDs of these statements.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "The statements that should be processed.", required = true)
+    public ResponseEntity<Void> handleStatements(@RequestBody List<JsonNode> statements) {
+        if (statementIngestionService.isEnabled()) {
+            statementIngestionService.acceptStatements(statements);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        }
+        tudAssistanceBackboneService.handleStatements(statements);
+        return ResponseEntity.status(HttpStatus.CREATED).build();
+    }
+
+    @PostMapping(value = "/batch", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('STATEMENT_SENDER') || hasRole('ADMIN')")
+    @Operation(operationId = "processNdjsonStatements",
+            summary = "The function to send multiple statements as newline delimited JSON that should be processed.",
+            description = "Behaves like the function to send multiple statements as JSON array.")
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "The statements that should be processed, one per line.", required = true)
+    public ResponseEntity<Void> handleNdjsonStatements(@RequestBody String statements) {
+        List<JsonNode> parsedStatements;
+        try (MappingIterator<JsonNode> iterator = objectMapper.readerFor(JsonNode.class).readValues(statements)) {
+            parsedStatements = iterator.readAll();
+        } catch (IOException e) {
+            throw new InvalidStatementException(e.getMessage());
+        }
+        return handleStatements(parsedStatements);
+    }
+
+    @ExceptionHandler(StatementProcessingException.class)
+    public ResponseEntity<StatementProcessingErrorDto> handleStatementProcessingException(
+            StatementProcessingException e) {
+        return ResponseEntity.status(HttpStatus.BAD_GATEWAY)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(new StatementProcessingErrorDto(
+                        e.getMessage() == null ? "statement processing failed" : e.getMessage(),
+                        e.getFailedStatementIds()));
     }
 }
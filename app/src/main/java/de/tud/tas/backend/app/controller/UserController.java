@@ -29,6 +29,7 @@ import de.tud.tas.backend.app.model.UserLanguage;
 import de.tud.tas.backend.app.model.UserRole;
 import de.tud.tas.backend.app.service.AuthService;
 import de.tud.tas.backend.app.service.UserService;
+import de.tud.tas.backend.app.service.WebSocketConnectionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -36,8 +37,6 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
-import org.springframework.messaging.simp.user.SimpUser;
-import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
@@ -53,7 +52,7 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class UserController {
     private final AuthService authService;
-    private final SimpUserRegistry simpUserRegistry;
+    private final WebSocketConnectionService webSocketConnectionService;
     private final UserService userService;
     private final UserMapper userMapper;
 
@@ -72,11 +71,7 @@ public class UserController {
     @Operation(operationId = "getUsersWebSocketConnections",
             summary = "The function to retrieve all users WebSocket connections as a list.")
     public List<String> getAllUsersWebSocketConnections() {
-        return this.simpUserRegistry
-                .getUsers()
-                .stream()
-                .map(SimpUser::getName)
-                .toList();
+        return webSocketConnectionService.getConnectedUserNames();
     }
 
     @GetMapping(path = "/{userId}", produces = MediaType.APPLICATION_JSON_VALUE)
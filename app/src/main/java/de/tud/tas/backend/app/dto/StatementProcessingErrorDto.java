@@ -0,0 +1,50 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.dto;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import java.util.List;
+
+@Getter
+@RequiredArgsConstructor
+@Schema(name = "statementProcessingError",
+        title = "Statement Processing Error",
+        description = "This represents the schema for statements of a batch that could not be processed.")
+public class StatementProcessingErrorDto {
+    @NotBlank
+    @NonNull
+    @Schema(name = "message",
+            title = "Message",
+            description = "This represents the description of the error.",
+            requiredMode = Schema.RequiredMode.REQUIRED)
+    private final String message;
+
+    @NonNull
+    @ArraySchema(schema = @Schema(name = "failedStatementIds",
+            title = "Failed Statement IDs",
+            description = "This represents the IDs of the statements that could not be processed and can be sent " +
+                    "again. All other statements of the batch were processed.",
+            requiredMode = Schema.RequiredMode.REQUIRED))
+    private final List<String> failedStatementIds;
+}
@@ -0,0 +1,42 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * This event is published whenever a change affects the resolved configuration of one or all courses, e.g., the
+ * enabled assistance types.
+ */
+@Getter
+public class CourseConfigurationChangedEvent extends ApplicationEvent {
+    /**
+     * The object ID of the changed course Base64Url encoded, or null if all courses are affected.
+     */
+    private final String objectId;
+
+    public CourseConfigurationChangedEvent(Object source, String objectId) {
+        super(source);
+        this.objectId = objectId;
+    }
+
+    public CourseConfigurationChangedEvent(Object source) {
+        this(source, null);
+    }
+}
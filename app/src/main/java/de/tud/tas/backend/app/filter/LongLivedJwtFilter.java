@@ -17,11 +17,13 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.filter;
 
-import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.app.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.GenericFilterBean;
 
@@ -32,8 +34,6 @@ import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.List;
-import java.util.Objects;
 import java.util.UUID;
 
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
@@ -53,7 +53,7 @@ public class LongLivedJwtFilter extends GenericFilterBean {
         HttpServletRequest httpServletRequest = (HttpServletRequest) servletRequest;
         String encodedJwt = this.resolveToken(httpServletRequest);
         if (StringUtils.hasText(encodedJwt)) {
-            Jwt jwt = jwtDecoder.decode(encodedJwt);
+            Jwt jwt = getJwt(encodedJwt);
             if (jwt.getExpiresAt() != null) {
                 // Nothing to do here since it is not a long-lived token
                 filterChain.doFilter(servletRequest, servletResponse);
@@ -65,9 +65,7 @@ public class LongLivedJwtFilter extends GenericFilterBean {
                 return;
             }
 
-            String longLivedTokenId = String.valueOf(jwt.getClaims().get("lltid"));
-            List<String> validTokenStrings = getValidLongLivedTokens().stream().map(UUID::toString).toList();
-            if (!validTokenStrings.contains(longLivedTokenId)) {
+            if (!isValidLongLivedTokenId(String.valueOf(jwt.getClaims().get("lltid")))) {
                 ((HttpServletResponse) servletResponse).setStatus(HttpServletResponse.SC_UNAUTHORIZED);
                 log.warn("Attempt to authenticate with a revoked long-lived token!");
                 return;
@@ -76,6 +74,16 @@ public class LongLivedJwtFilter extends GenericFilterBean {
         filterChain.doFilter(servletRequest, servletResponse);
     }
 
+    private Jwt getJwt(String encodedJwt) {
+        // The token was usually already decoded and verified by the BearerTokenAuthenticationFilter
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication instanceof JwtAuthenticationToken jwtAuthenticationToken
+                && encodedJwt.equals(jwtAuthenticationToken.getToken().getTokenValue())) {
+            return jwtAuthenticationToken.getToken();
+        }
+        return jwtDecoder.decode(encodedJwt);
+    }
+
     private String resolveToken(HttpServletRequest request) {
 
         String bearerToken = request.getHeader(AUTHORIZATION);
@@ -85,7 +93,11 @@ public class LongLivedJwtFilter extends GenericFilterBean {
         return null;
     }
 
-    private List<UUID> getValidLongLivedTokens() {
-        return userService.getAllUsers().stream().map(User::getLongLivedTokenId).filter(Objects::nonNull).toList();
+    private boolean isValidLongLivedTokenId(String longLivedTokenId) {
+        try {
+            return userService.isLongLivedTokenIdValid(UUID.fromString(longLivedTokenId));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
     }
 }
@@ -17,12 +17,14 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.handler;
 
-import de.tud.tas.backend.app.service.AssistanceCommunicationService;
+import de.tud.tas.backend.app.service.AssistanceDispatchService;
+import de.tud.tas.backend.app.service.BackboneConnectionService;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
 import lombok.AllArgsConstructor;
 import lombok.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompFrameHandler;
 import org.springframework.messaging.simp.stomp.StompHeaders;
 import org.springframework.messaging.simp.stomp.StompSession;
@@ -32,7 +34,8 @@ import java.lang.reflect.Type;
 
 @AllArgsConstructor
 public class StompEventHandler extends StompSessionHandlerAdapter {
-    private final AssistanceCommunicationService assistanceCommunicationService;
+    private final AssistanceDispatchService assistanceDispatchService;
+    private final BackboneConnectionService backboneConnectionService;
     private static final Logger log = LoggerFactory.getLogger(StompEventHandler.class);
 
     @Override
@@ -48,8 +51,21 @@ public class StompEventHandler extends StompSessionHandlerAdapter {
 
             @Override
             public void handleFrame(@NonNull StompHeaders headers, Object payload) {
-                assistanceCommunicationService.handleAssistanceForUsers((AssistanceBundle) payload);
+                // The assistance is handled by other threads, so that slow handling does not delay subsequent frames
+                assistanceDispatchService.dispatchAssistanceForUsers((AssistanceBundle) payload);
             }
         });
+        backboneConnectionService.handleConnected();
+    }
+
+    @Override
+    public void handleException(@NonNull StompSession session, StompCommand command, @NonNull StompHeaders headers,
+                                @NonNull byte[] payload, @NonNull Throwable exception) {
+        log.error("Failed to handle {} frame from Backbone - {}!", command, exception.getMessage());
+    }
+
+    @Override
+    public void handleTransportError(@NonNull StompSession session, @NonNull Throwable exception) {
+        backboneConnectionService.handleConnectionLost(exception);
     }
 }
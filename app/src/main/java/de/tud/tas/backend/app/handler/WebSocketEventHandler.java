@@ -23,10 +23,12 @@ import de.tud.tas.backend.app.model.WebSocketDisconnect;
 import de.tud.tas.backend.app.provision.TimeProvider;
 import de.tud.tas.backend.app.repository.WebSocketDisconnectRepository;
 import de.tud.tas.backend.app.service.UserService;
+import de.tud.tas.backend.app.service.WebSocketConnectionService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.*;
@@ -39,10 +41,16 @@ import java.util.Objects;
 public class WebSocketEventHandler {
     private final TimeProvider timeProvider;
     private final UserService userService;
+    private final WebSocketConnectionService webSocketConnectionService;
     private final WebSocketDisconnectRepository webSocketDisconnectRepository;
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketEventHandler.class);
 
+    /**
+     * The header of the CONNECT frame with which a client accepts batched assistance communication objects.
+     */
+    public static final String BATCHING_HEADER = "batching";
+
     @EventListener
     public void handleSessionConnect(SessionConnectEvent event) {
         log.debug("WebSocket session received CONNECT");
@@ -59,12 +67,25 @@ public class WebSocketEventHandler {
     @EventListener
     public void handleSessionConnected(SessionConnectedEvent event) {
         log.debug("WebSocket session connected");
+
+        // The session is registered once the CONNECT frame was accepted, while the batching flag is taken from it
+        SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Message<?> connectMessage = (Message<?>) headers.getHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER);
+        Principal userPrincipal = event.getUser();
+        if (connectMessage == null || userPrincipal == null) {
+            return;
+        }
+        String batchingHeaderValue = SimpMessageHeaderAccessor.wrap(connectMessage)
+                .getFirstNativeHeader(BATCHING_HEADER);
+        webSocketConnectionService.registerConnection(headers.getSessionId(), userPrincipal.getName(),
+                Boolean.parseBoolean(batchingHeaderValue));
     }
 
     @EventListener
     public void handleSessionDisconnect(SessionDisconnectEvent event) {
         log.debug("WebSocket session received DISCONNECT");
 
+        webSocketConnectionService.unregisterConnection(event.getSessionId());
         SimpMessageHeaderAccessor headers = SimpMessageHeaderAccessor.wrap(event.getMessage());
         Principal userPrincipal = headers.getUser();
         if (userPrincipal == null) {
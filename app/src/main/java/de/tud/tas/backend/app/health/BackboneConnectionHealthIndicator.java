@@ -0,0 +1,52 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.health;
+
+import de.tud.tas.backend.app.model.BackboneConnectionState;
+import de.tud.tas.backend.app.service.BackboneConnectionService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+
+/**
+ * Exposes the state of the STOMP connection to the TUD Assistance Backbone. A lost connection is reported as unknown
+ * instead of down, since it is re-established automatically and restarting the application would not help.
+ */
+@Component
+@RequiredArgsConstructor
+public class BackboneConnectionHealthIndicator implements HealthIndicator {
+    private final BackboneConnectionService backboneConnectionService;
+
+    @Override
+    public Health health() {
+        BackboneConnectionState connectionState = backboneConnectionService.getConnectionState();
+        Health.Builder builder = connectionState == BackboneConnectionState.CONNECTED
+                || connectionState == BackboneConnectionState.STANDBY
+                ? Health.up()
+                : Health.unknown();
+        builder.withDetail("state", connectionState);
+        Instant disconnectedSince = backboneConnectionService.getDisconnectedSince();
+        if (disconnectedSince != null) {
+            builder.withDetail("disconnectedSince", disconnectedSince);
+        }
+        return builder.build();
+    }
+}
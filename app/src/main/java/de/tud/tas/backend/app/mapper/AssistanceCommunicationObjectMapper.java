@@ -20,13 +20,11 @@ package de.tud.tas.backend.app.mapper;
 import de.tud.tas.backend.app.dto.AssistanceCommunicationObjectDto;
 import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
 import de.tud.tas.backend.app.model.User;
-import de.tud.tas.backend.app.service.UserService;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObject;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObjectRecord;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.ReportingPolicy;
-import org.springframework.beans.factory.annotation.Autowired;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -34,9 +32,6 @@ import java.time.ZoneId;
 
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public abstract class AssistanceCommunicationObjectMapper {
-    @Autowired
-    private UserService userService;
-
     @Mapping(target = "timestamp", dateFormat = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'")
     public abstract AssistanceCommunicationObjectDto toAssistanceCommunicationObjectDto(
             AssistanceCommunicationObject value);
@@ -45,15 +40,14 @@ public abstract class AssistanceCommunicationObjectMapper {
     public abstract AssistanceCommunicationObject toAssistanceCommunicationObject(
             AssistanceCommunicationObjectDto value, String contextId);
 
-    public AssistanceCommunicationObject toAssistanceCommunicationObject(AssistanceObjectRecord value) {
-        User user = userService.getUserByActorAccountName(value.getUserId());
+    public AssistanceCommunicationObject toAssistanceCommunicationObject(AssistanceObjectRecord value, User user) {
         return new AssistanceCommunicationObject(LocalDateTime.ofInstant(
                 Instant.parse(value.getTimestamp()), ZoneId.systemDefault()), user.getId().toString(), value.getaId(),
                 value.getAssistanceType(), value.getAoId(), value.getParameters(), value.getContextId());
     }
 
-    public AssistanceCommunicationObject toAssistanceCommunicationObject(AssistanceObject value, String aId) {
-        User user = userService.getUserByActorAccountName(value.getUserId());
+    public AssistanceCommunicationObject toAssistanceCommunicationObject(AssistanceObject value, String aId,
+                                                                         User user) {
         return new AssistanceCommunicationObject(LocalDateTime.ofInstant(
                 Instant.parse(value.getTimestamp()), ZoneId.systemDefault()), user.getId().toString(), aId,
                 value.getAssistanceType(), value.getAoId(), value.getParameters(), value.getContextId());
@@ -0,0 +1,59 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * This class encapsulates a message that has to be sent to a user connected to another instance of the TUD TAS
+ * Backend.
+ */
+@Document
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterMessage {
+    @Id
+    private String id;
+    /**
+     * The ID of the instance the user is connected to.
+     */
+    private String targetInstanceId;
+    /**
+     * The name of the principal of the user.
+     */
+    private String userName;
+    /**
+     * The user destination the message is sent to.
+     */
+    private String destination;
+    /**
+     * The payload serialized as JSON.
+     */
+    private String payload;
+    /**
+     * The time at which the message was created. Undelivered messages expire.
+     */
+    private Instant createdTimestamp;
+}
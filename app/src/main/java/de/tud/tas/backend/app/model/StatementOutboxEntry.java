@@ -0,0 +1,58 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.model;
+
+import lombok.*;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * This class encapsulates a statement that still has to be sent to the Learning Locker.
+ *
+ */
+@Document
+@Getter
+@Setter
+@ToString
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatementOutboxEntry {
+    /**
+     * The ID of the entry. Since it is generated as ObjectId, it reflects the order in which the entries were added.
+     */
+    @Id
+    private String id;
+    /**
+     * The statement serialized as JSON.
+     */
+    private String statement;
+    /**
+     * The time at which the statement was added to the outbox.
+     */
+    private LocalDateTime createdTimestamp;
+    /**
+     * The ID of the claim of the instance that currently sends the statement, if any.
+     */
+    private String claimId;
+    /**
+     * The time until which the statement is claimed. Afterwards, any instance may claim it again.
+     */
+    private LocalDateTime claimedUntil;
+}
@@ -52,6 +52,7 @@ public class User {
     /**
      * The ID for a long-lived token of a user.
      */
+    @Indexed(sparse = true)
     private UUID longLivedTokenId;
     /**
      * The URL of the last LMS the user was observed as logged in.
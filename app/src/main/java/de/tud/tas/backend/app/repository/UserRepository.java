@@ -17,6 +17,8 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -28,4 +30,6 @@ import org.springframework.stereotype.Repository;
 public interface UserRepository extends MongoRepository<User, UUID> {
     void deleteByActorAccountName(String actorAccountName);
     Optional<User> findByActorAccountName(String actorAccountName);
+    List<User> findByActorAccountNameIn(Collection<String> actorAccountNames);
+    boolean existsByLongLivedTokenId(UUID longLivedTokenId);
 }
@@ -17,23 +17,31 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.service;
 
-import de.tud.tas.backend.app.exceptions.UserNotFoundException;
+import com.mongodb.ErrorCategory;
+import com.mongodb.bulk.BulkWriteError;
 import de.tud.tas.backend.app.factory.StatementFactory;
 import de.tud.tas.backend.app.mapper.AssistanceCommunicationObjectMapper;
 import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
+import de.tud.tas.backend.app.model.HandledAssistanceObject;
 import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.app.provision.TimeProvider;
 import de.tud.tas.backend.app.repository.AssistanceCommunicationObjectRepository;
-import de.tud.tas.backend.learning_locker_api_client.api.StatementsApi;
+import de.tud.tas.backend.app.repository.HandledAssistanceObjectRepository;
+import de.tud.tas.backend.app.util.AssistanceBundleHelper;
 import de.tud.tas.backend.learning_locker_api_client.model.Statement;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.api.TutorialModuleApi;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @SuppressWarnings("FieldCanBeLocal")
 @Service
@@ -45,9 +53,11 @@ public class AssistanceCommunicationServiceImpl implements AssistanceCommunicati
     private final AssistanceCommunicationObjectMapper assistanceCommunicationObjectMapper;
     private final AssistanceCommunicationObjectRepository assistanceCommunicationObjectRepository;
     private final ChatbotMessageService chatbotMessageService;
+    private final HandledAssistanceObjectRepository handledAssistanceObjectRepository;
     private final LearningRecordLoggingService learningRecordLoggingService;
+    private final LearningRecordStoreService learningRecordStoreService;
+    private final MongoTemplate mongoTemplate;
     private final StatementFactory statementFactory;
-    private final StatementsApi statementsApi;
     private final TimeProvider timeProvider;
     private final TutorialModuleApi tutorialModuleApi;
     private final UserService userService;
@@ -103,35 +113,103 @@ public class AssistanceCommunicationServiceImpl implements AssistanceCommunicati
 
     @Override
     public void handleAssistanceForUsers(AssistanceBundle assistanceBundle) {
-        learningRecordLoggingService.logAssistanceBundle(assistanceBundle);
         if (assistanceBundle == null) {
             throw new IllegalStateException();
         }
+        // Duplicates are skipped before anything is logged, saved, or sent. The IDs are claimed in the database, so
+        // that an object received by several instances is only handled by one of them.
+        Set<String> claimedAssistanceObjectIds = claimAssistanceObjectIds(assistanceBundle.getAssistance()
+                .stream()
+                .flatMap(assistance -> assistance.getAssistanceObjects().stream())
+                .map(AssistanceObject::getAoId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new)));
+        AssistanceBundle newAssistanceBundle = AssistanceBundleHelper.filterAssistanceObjects(assistanceBundle,
+                assistanceObject -> {
+                    if (assistanceObject.getAoId() != null
+                            && !claimedAssistanceObjectIds.remove(assistanceObject.getAoId())) {
+                        log.debug("Assistance object {} was already handled.", assistanceObject.getAoId());
+                        return false;
+                    }
+                    return true;
+                });
+        if (newAssistanceBundle.getAssistance().isEmpty()) {
+            return;
+        }
+
+        // Resolve all users of the bundle with a single query and reuse them for logging and mapping
+        Set<String> actorAccountNames = new HashSet<>();
+        for (Assistance assistance : newAssistanceBundle.getAssistance()) {
+            actorAccountNames.add(assistance.getUserId());
+            for (AssistanceObject assistanceObject : assistance.getAssistanceObjects()) {
+                actorAccountNames.add(assistanceObject.getUserId());
+            }
+        }
+        actorAccountNames.remove(null);
+        Map<String, User> usersByActorAccountName;
+        try {
+            usersByActorAccountName = userService.getUsersByActorAccountNames(actorAccountNames);
+        } catch (RuntimeException e) {
+            releaseAssistanceObjectIds(newAssistanceBundle.getAssistance()
+                    .stream()
+                    .flatMap(assistance -> assistance.getAssistanceObjects().stream())
+                    .toList());
+            throw e;
+        }
+        learningRecordLoggingService.logAssistanceBundle(newAssistanceBundle, usersByActorAccountName);
 
         List<Statement> assistanceStatements = new ArrayList<>();
-        for (Assistance assistance : assistanceBundle.getAssistance()) {
+        // The objects are sent per user, so that the objects of the same context can be batched
+        Map<UUID, List<AssistanceCommunicationObject>> assistanceCommunicationObjectsByUser = new LinkedHashMap<>();
+        Map<UUID, List<AssistanceObject>> assistanceObjectsByUser = new HashMap<>();
+        Map<UUID, User> usersById = new HashMap<>();
+        for (Assistance assistance : newAssistanceBundle.getAssistance()) {
             for (AssistanceObject assistanceObject : assistance.getAssistanceObjects()) {
-                User user;
-                try {
-                    user = userService.getUserByActorAccountName(assistanceObject.getUserId());
-                } catch (UserNotFoundException e) {
+                User user = usersByActorAccountName.get(assistanceObject.getUserId());
+                if (user == null) {
                     log.warn("Can't send assistance object to user {}. User not found!", assistanceObject.getUserId());
                     assistanceStatements.add(statementFactory.generateStatement(
                             "anonymous", tudAssistanceBackboneUrl, "got_assisted_by", tudAssistanceBackboneUrl));
                     continue;
                 }
                 AssistanceCommunicationObject assistanceCommunicationObject = assistanceCommunicationObjectMapper
-                        .toAssistanceCommunicationObject(assistanceObject, assistance.getaId());
-                assistanceCommunicationObjectRepository.save(assistanceCommunicationObject);
-                chatbotMessageService.sendAssistanceCommunicationObjectToUser(user, assistanceCommunicationObject);
+                        .toAssistanceCommunicationObject(assistanceObject, assistance.getaId(), user);
+                usersById.putIfAbsent(user.getId(), user);
+                assistanceCommunicationObjectsByUser
+                        .computeIfAbsent(user.getId(), userId -> new ArrayList<>())
+                        .add(assistanceCommunicationObject);
+                assistanceObjectsByUser
+                        .computeIfAbsent(user.getId(), userId -> new ArrayList<>())
+                        .add(assistanceObject);
                 assistanceStatements.add(statementFactory.generateStatement(
                         user.getActorAccountName(), tudAssistanceBackboneUrl, "got_assisted_by", tudAssistanceBackboneUrl));
             }
         }
         try {
-            statementsApi.storeStatements(assistanceStatements);
+            assistanceCommunicationObjectRepository.saveAll(assistanceCommunicationObjectsByUser.values()
+                    .stream()
+                    .flatMap(List::stream)
+                    .toList());
+        } catch (RuntimeException e) {
+            assistanceObjectsByUser.values().forEach(this::releaseAssistanceObjectIds);
+            throw e;
+        }
+        // Objects that could not be sent are removed again, so that they are not stored twice if they are sent again
+        assistanceCommunicationObjectsByUser.forEach((userId, assistanceCommunicationObjects) -> {
+            try {
+                chatbotMessageService.sendAssistanceCommunicationObjectsToUser(
+                        usersById.get(userId), assistanceCommunicationObjects);
+            } catch (Exception e) {
+                log.error("Failed to send assistance objects to user {} - {}!",
+                        usersById.get(userId).getActorAccountName(), e.getMessage());
+                assistanceCommunicationObjectRepository.deleteAll(assistanceCommunicationObjects);
+                releaseAssistanceObjectIds(assistanceObjectsByUser.get(userId));
+            }
+        });
+        try {
+            learningRecordStoreService.storeStatements(assistanceStatements);
         } catch (Exception e) {
-            log.error("Failed to send statement(s) for initiated assistance to Learning Locker - {}!", e.getMessage());
+            log.error("Failed to store statements for Learning Locker - {}!", e.getMessage());
         }
     }
 
@@ -146,6 +224,42 @@ public class AssistanceCommunicationServiceImpl implements AssistanceCommunicati
         assistanceCommunicationObjectRepository.deleteAll(expiredAssistanceCommunicationObjects);
     }
 
+    private Set<String> claimAssistanceObjectIds(Set<String> aoIds) {
+        if (aoIds.isEmpty()) {
+            return aoIds;
+        }
+        Instant now = Instant.now();
+        List<HandledAssistanceObject> handledAssistanceObjects = aoIds.stream()
+                .map(aoId -> new HandledAssistanceObject(aoId, now))
+                .toList();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HandledAssistanceObject.class)
+                    .insert(handledAssistanceObjects)
+                    .execute();
+        } catch (BulkOperationException e) {
+            // The IDs that are already stored were claimed before and are skipped
+            for (BulkWriteError error : e.getErrors()) {
+                if (ErrorCategory.fromErrorCode(error.getCode()) != ErrorCategory.DUPLICATE_KEY) {
+                    throw e;
+                }
+                aoIds.remove(handledAssistanceObjects.get(error.getIndex()).getAoId());
+            }
+        }
+        return aoIds;
+    }
+
+    private void releaseAssistanceObjectIds(List<AssistanceObject> assistanceObjects) {
+        try {
+            handledAssistanceObjectRepository.deleteAllById(assistanceObjects
+                    .stream()
+                    .map(AssistanceObject::getAoId)
+                    .filter(Objects::nonNull)
+                    .toList());
+        } catch (RuntimeException e) {
+            log.error("Failed to release the IDs of the assistance objects - {}!", e.getMessage());
+        }
+    }
+
     private AssistanceParameter getAssistanceParameterByKey(AssistanceCommunicationObject assistanceCommunicationObject,
                                                             String assistanceParameterKey) {
         return assistanceCommunicationObject.getParameters()
@@ -172,7 +286,8 @@ public class AssistanceCommunicationServiceImpl implements AssistanceCommunicati
                                                 .value(user.getActorAccountName())),
                                         null, null).getAssistanceObjectRecords()
                                 .stream()
-                                .map(assistanceCommunicationObjectMapper::toAssistanceCommunicationObject)
+                                .map(assistanceObjectRecord -> assistanceCommunicationObjectMapper
+                                        .toAssistanceCommunicationObject(assistanceObjectRecord, user))
                                 .sorted(Comparator.comparing(AssistanceCommunicationObject::getTimestamp))
                                 .toList();
                 // Reset unacknowledged messages
@@ -208,10 +323,10 @@ public class AssistanceCommunicationServiceImpl implements AssistanceCommunicati
                     .getValue()).toString();
             userService.updateLastLoggedInLmsUrl(user.getId(), lmsUrlParameter);
             try {
-                statementsApi.storeStatements(List.of(statementFactory.generateStatement(
+                learningRecordStoreService.storeStatements(List.of(statementFactory.generateStatement(
                         user.getActorAccountName(), lmsUrlParameter, "loggedin", lmsUrlParameter)));
             } catch (Exception e) {
-                log.error("Sending of login statement to Learning Locker failed!");
+                log.error("Failed to store login statement for Learning Locker - {}!", e.getMessage());
             }
         }
     }
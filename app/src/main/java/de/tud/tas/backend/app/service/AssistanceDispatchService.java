@@ -0,0 +1,34 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
+
+/**
+ * This is a class for handing assistance over to worker threads, so that the thread receiving it is not blocked.
+ */
+public interface AssistanceDispatchService {
+    /**
+     * The function to dispatch the assistance of a bundle. The assistance of each user is handled in the order it
+     * was dispatched, while the assistance of different users is handled in parallel. This applies to the assistance
+     * pushed by the TUD Assistance Backbone as well as to the assistance it returns for a processed statement.
+     *
+     * @param assistanceBundle bundle containing the assistance
+     */
+    void dispatchAssistanceForUsers(AssistanceBundle assistanceBundle);
+}
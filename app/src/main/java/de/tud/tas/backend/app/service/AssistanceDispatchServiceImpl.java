@@ -0,0 +1,76 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.app.util.AssistanceBundleHelper;
+import de.tud.tas.backend.app.util.PartitionedTaskExecutor;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.Assistance;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class AssistanceDispatchServiceImpl implements AssistanceDispatchService {
+    private static final Logger log = LoggerFactory.getLogger(AssistanceDispatchServiceImpl.class);
+
+    private final AssistanceCommunicationService assistanceCommunicationService;
+    private PartitionedTaskExecutor assistanceDispatchTaskExecutor;
+
+    @Autowired
+    public void setAssistanceDispatchTaskExecutor(
+            @Qualifier("assistanceDispatchTaskExecutor") PartitionedTaskExecutor taskExecutor) {
+        assistanceDispatchTaskExecutor = taskExecutor;
+    }
+
+    @Override
+    public void dispatchAssistanceForUsers(AssistanceBundle assistanceBundle) {
+        if (assistanceBundle == null || assistanceBundle.getAssistance().isEmpty()) {
+            return;
+        }
+        splitAssistanceBundleByUser(assistanceBundle).forEach((userId, assistanceBundleOfUser) ->
+                assistanceDispatchTaskExecutor.execute(userId, () -> {
+                    try {
+                        assistanceCommunicationService.handleAssistanceForUsers(assistanceBundleOfUser);
+                    } catch (Exception e) {
+                        log.error("Failed to handle assistance for user {} - {}!", userId, e.getMessage());
+                    }
+                }));
+    }
+
+    private Map<String, AssistanceBundle> splitAssistanceBundleByUser(AssistanceBundle assistanceBundle) {
+        Map<String, AssistanceBundle> assistanceBundlesByUser = new LinkedHashMap<>();
+        for (Assistance assistance : assistanceBundle.getAssistance()) {
+            assistance.getAssistanceObjects()
+                    .stream()
+                    .collect(Collectors.groupingBy(assistanceObject -> Objects.toString(assistanceObject.getUserId()),
+                            LinkedHashMap::new, Collectors.toList()))
+                    .forEach((userId, assistanceObjectsOfUser) -> assistanceBundlesByUser
+                            .computeIfAbsent(userId, key -> new AssistanceBundle())
+                            .addAssistanceItem(AssistanceBundleHelper.copyAssistance(assistance, assistanceObjectsOfUser)));
+        }
+        return assistanceBundlesByUser;
+    }
+}
@@ -42,6 +42,14 @@ public interface AssistanceTypeService {
      */
     List<AssistanceTypeDto> getAssistanceTypeDtos();
 
+    /**
+     * The function to get the keys of all assistance types that are supported by the TUD Assistance Backbone. The
+     * keys are read from the local replica of the supported assistance types.
+     *
+     * @return keys of all supported assistance types
+     */
+    List<String> getSupportedAssistanceTypeKeys();
+
     /**
      * The function to set the stored assistance types. Only assistance types with configured preconditions are
      * persisted.
@@ -18,6 +18,7 @@
 package de.tud.tas.backend.app.service;
 
 import de.tud.tas.backend.app.dto.AssistanceTypeDto;
+import de.tud.tas.backend.app.event.CourseConfigurationChangedEvent;
 import de.tud.tas.backend.app.exceptions.AssistanceTypeNotFoundException;
 import de.tud.tas.backend.app.mapper.AssistanceTypeMapper;
 import de.tud.tas.backend.app.mapper.FeatureMapper;
@@ -25,9 +26,8 @@ import de.tud.tas.backend.app.model.*;
 import de.tud.tas.backend.app.model.*;
 import de.tud.tas.backend.app.repository.AssistanceTypeRepository;
 import de.tud.tas.backend.app.repository.CourseRepository;
-import de.tud.tas.backend.tud_assistance_backbone_api_client.api.ProvisioningApi;
-import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceTypeList;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -42,17 +42,18 @@ public class AssistanceTypeServiceImpl implements AssistanceTypeService {
     private final AssistanceTypeMapper assistanceTypeMapper;
     private final CourseRepository courseRepository;
     private final FeatureMapper featureMapper;
-    private final ProvisioningApi provisioningApi;
+    private final SupportedAssistanceTypeService supportedAssistanceTypeService;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     @Transactional
     public void syncAssistanceTypes() {
-        AssistanceTypeList assistanceTypeList = provisioningApi.getSupportedAssistanceTypes(
-                null, null, null);
-        if (assistanceTypeList.getProvidedNumber() != 0) {
+        supportedAssistanceTypeService.refreshSupportedAssistanceTypes();
+        List<de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceType> supportedAssistanceTypes =
+                supportedAssistanceTypeService.getSupportedAssistanceTypes();
+        if (!supportedAssistanceTypes.isEmpty()) {
             assistanceTypeRepository.deleteAssistanceTypesByKeyNotIn(
-                    assistanceTypeList
-                            .getTypes()
+                    supportedAssistanceTypes
                             .stream()
                             .map(de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceType::getKey)
                             .toList());
@@ -61,16 +62,15 @@ public class AssistanceTypeServiceImpl implements AssistanceTypeService {
         courseRepository.findCoursesByCourseAssistanceTypesIsNotNull()
                 .forEach(course -> updateCourseAssistanceTypesPreconditionFulfilledByKeys(course,
                         course.getCourseAssistanceTypes().stream().map(CourseAssistanceType::getKey).toList()));
+        applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this));
     }
 
     @Override
     public List<AssistanceTypeDto> getAssistanceTypeDtos() {
-        AssistanceTypeList assistanceTypesFromAssistanceSystem =
-                provisioningApi.getSupportedAssistanceTypes(null, null, null);
         Map<String, AssistanceType> assistanceTypesFromDatabaseByKey = assistanceTypeRepository.findAll()
                 .stream()
                 .collect(Collectors.toMap(AssistanceType::getKey, Function.identity()));
-        return assistanceTypesFromAssistanceSystem.getTypes()
+        return supportedAssistanceTypeService.getSupportedAssistanceTypes()
                 .stream()
                 .map(assistanceTypeMapper::toAssistanceTypeDto)
                 .peek(assistanceTypeDto -> {
@@ -86,6 +86,14 @@ public class AssistanceTypeServiceImpl implements AssistanceTypeService {
                 .toList();
     }
 
+    @Override
+    public List<String> getSupportedAssistanceTypeKeys() {
+        return supportedAssistanceTypeService.getSupportedAssistanceTypes()
+                .stream()
+                .map(de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceType::getKey)
+                .toList();
+    }
+
     @Override
     @Transactional
     public List<AssistanceType> setAssistanceTypes(List<AssistanceType> assistanceTypes) {
@@ -102,6 +110,7 @@ public class AssistanceTypeServiceImpl implements AssistanceTypeService {
                         && !assistanceType.getRequiredFeatures().isEmpty())
                 .toList());
         courseRepository.findAll().forEach(course -> updateCourseAssistanceTypesPreconditionFulfilled(course, assistanceTypes));
+        applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this));
 
         return assistanceTypes;
     }
@@ -136,16 +145,17 @@ public class AssistanceTypeServiceImpl implements AssistanceTypeService {
 
         assistanceTypeRepository.deleteAll(assistanceTypesToDelete);
         updateCourseAssistanceTypesPreconditionFulfilled(course, assistanceTypesToSet);
+        applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this, course.getObjectId()));
     }
 
     private void updateCourseAssistanceTypesPreconditionFulfilled(
             Course course, List<AssistanceType> assistanceTypesToSet) {
-        List<Feature> enabledFeatures = course.getCourseFeatures() == null ? Collections.emptyList() :
+        Set<Feature> enabledFeatures = course.getCourseFeatures() == null ? Collections.emptySet() :
                 course.getCourseFeatures()
                         .stream()
                         .filter(CourseFeature::isEnabled)
                         .map(CourseFeature::getFeature)
-                        .toList();
+                        .collect(Collectors.toSet());
 
         Map<String, CourseAssistanceType> previousAssistanceTypeKeysToAssistanceTypes =
                 course.getCourseAssistanceTypes()
@@ -161,7 +171,7 @@ public class AssistanceTypeServiceImpl implements AssistanceTypeService {
                         return null;
                     }
                     boolean preConditionFulfilled = assistanceType.getRequiredFeatures() == null ||
-                            new HashSet<>(enabledFeatures).containsAll(assistanceType.getRequiredFeatures());
+                            enabledFeatures.containsAll(assistanceType.getRequiredFeatures());
                     return new CourseAssistanceType(assistanceType.getKey(), enabled, preConditionFulfilled);
                 })
                 .filter(Objects::nonNull)
@@ -0,0 +1,67 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.app.model.BackboneConnectionState;
+
+import java.time.Instant;
+
+/**
+ * This is a class for managing the STOMP connection via which the TUD Assistance Backbone pushes assistance.
+ */
+public interface BackboneConnectionService {
+    /**
+     * The function to connect to the TUD Assistance Backbone. If the connection fails or is lost later, it is
+     * re-established with an exponential backoff.
+     */
+    void connect();
+
+    /**
+     * The function to acquire or renew the lease for the subscription to the TUD Assistance Backbone if multiple
+     * instances are running. Only the instance holding the lease connects, since every subscriber receives every
+     * pushed assistance bundle. If the lease is lost, the connection is closed.
+     */
+    void renewSubscriptionLease();
+
+    /**
+     * The function that is called when the connection to the TUD Assistance Backbone was established. If the
+     * connection was lost before, the assistance missed in the meantime is sent to the connected users.
+     */
+    void handleConnected();
+
+    /**
+     * The function that is called when the connection to the TUD Assistance Backbone failed or was lost.
+     *
+     * @param throwable cause of the connection loss
+     */
+    void handleConnectionLost(Throwable throwable);
+
+    /**
+     * The function to get the current state of the connection.
+     *
+     * @return state of the connection
+     */
+    BackboneConnectionState getConnectionState();
+
+    /**
+     * The function to get the time since which the connection is lost.
+     *
+     * @return time of the connection loss, or null if the connection was not lost
+     */
+    Instant getDisconnectedSince();
+}
@@ -0,0 +1,366 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.app.handler.StompEventHandler;
+import de.tud.tas.backend.app.model.BackboneConnectionState;
+import de.tud.tas.backend.app.model.ClusterLease;
+import de.tud.tas.backend.app.model.HandledAssistanceObject;
+import de.tud.tas.backend.app.model.User;
+import de.tud.tas.backend.app.model.UserRole;
+import de.tud.tas.backend.app.repository.HandledAssistanceObjectRepository;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.api.TutorialModuleApi;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.*;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import javax.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+public class BackboneConnectionServiceImpl implements BackboneConnectionService {
+    @Value("${tud-assistance-backbone.url}")
+    private String tudAssistanceBackboneUrl;
+    /**
+     * Delay in milliseconds before the first attempt to reconnect, which is doubled for each failed attempt.
+     */
+    @Value("${tas-backend.backbone.reconnect.backoff}")
+    private Long reconnectBackoff;
+    @Value("${tas-backend.backbone.reconnect.max-backoff}")
+    private Long reconnectMaxBackoff;
+    /**
+     * Whether multiple instances are running. Since every subscriber receives every pushed assistance bundle, only the
+     * instance holding the subscription lease subscribes and routes the assistance to the other instances.
+     */
+    @Value("${tas-backend.cluster.enabled}")
+    private boolean clusterEnabled;
+    /**
+     * Interval in seconds in which the lease is renewed. It expires after 3 intervals without renewal.
+     */
+    @Value("${tas-backend.cluster.connection.refresh.interval}")
+    private Long leaseRenewalInterval;
+    /**
+     * Time in seconds the IDs of handled assistance objects are kept. Assistance created before that is not replayed,
+     * since it could not be told apart from assistance that was already handled.
+     */
+    @Value("${tas-backend.assistance.handled.ttl}")
+    private Long handledAssistanceTtl;
+
+    /**
+     * Assistance created shortly before the connection loss was detected may have been missed as well.
+     */
+    private static final Duration REPLAY_MARGIN = Duration.ofSeconds(30);
+    private static final String SUBSCRIPTION_LEASE_NAME = "backbone-subscription";
+
+    private static final Logger log = LoggerFactory.getLogger(BackboneConnectionServiceImpl.class);
+
+    private final AssistanceDispatchService assistanceDispatchService;
+    private final AuthService authService;
+    private final WebSocketStompClient backboneStompClient;
+    private final Clock clock;
+    private final HandledAssistanceObjectRepository handledAssistanceObjectRepository;
+    private final MongoTemplate mongoTemplate;
+    private final TutorialModuleApi tutorialModuleApi;
+    private final UserService userService;
+    private final WebSocketConnectionService webSocketConnectionService;
+    private TaskScheduler messageBrokerTaskScheduler;
+    private TaskExecutor backboneReplayTaskExecutor;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private boolean subscriptionLeaseHeld;
+    private StompSession stompSession;
+    private BackboneConnectionState connectionState = BackboneConnectionState.DISCONNECTED;
+    private Instant disconnectedSince;
+    private long currentReconnectBackoff;
+
+    @Autowired
+    public void setMessageBrokerTaskScheduler(@Lazy TaskScheduler taskScheduler) {
+        messageBrokerTaskScheduler = taskScheduler;
+    }
+
+    @Autowired
+    public void setBackboneReplayTaskExecutor(@Qualifier("backboneReplayTaskExecutor") TaskExecutor taskExecutor) {
+        backboneReplayTaskExecutor = taskExecutor;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void connectOnStartup() {
+        currentReconnectBackoff = reconnectBackoff;
+        if (clusterEnabled) {
+            renewSubscriptionLease();
+            return;
+        }
+        connect();
+    }
+
+    @PreDestroy
+    public void releaseSubscriptionLease() {
+        if (!clusterEnabled) {
+            return;
+        }
+        // Another instance can take over the subscription without waiting for the lease to expire
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(SUBSCRIPTION_LEASE_NAME)
+                .and("holderInstanceId").is(instanceId)), ClusterLease.class);
+    }
+
+    @Override
+    public synchronized void connect() {
+        if (!isSubscriptionAllowed()) {
+            return;
+        }
+        connectionState = BackboneConnectionState.CONNECTING;
+
+        // A new token is created for each attempt, since the previous one may have expired in the meantime
+        StompHeaders stompHeaders = new StompHeaders();
+        stompHeaders.add("token", authService.createJwt("tud_tas_backend", UserRole.ADMIN));
+
+        String websocketUrl = tudAssistanceBackboneUrl
+                .replaceFirst("http://", "ws://")
+                .replaceFirst("https://", "wss://") + "/api/v1/websocket";
+
+        backboneStompClient.connect(websocketUrl, (WebSocketHttpHeaders) null, stompHeaders,
+                        new StompEventHandler(assistanceDispatchService, this))
+                .addCallback(this::handleSessionEstablished, this::handleConnectionLost);
+    }
+
+    @Override
+    public void renewSubscriptionLease() {
+        if (!clusterEnabled) {
+            return;
+        }
+        boolean leaseAcquired;
+        try {
+            leaseAcquired = tryAcquireSubscriptionLease();
+        } catch (Exception e) {
+            // Without a confirmed lease, another instance may take over, so the subscription is given up
+            log.error("Failed to renew the subscription lease - {}!", e.getMessage());
+            leaseAcquired = false;
+        }
+        synchronized (this) {
+            boolean leaseChanged = leaseAcquired != subscriptionLeaseHeld;
+            subscriptionLeaseHeld = leaseAcquired;
+            if (leaseAcquired && leaseChanged) {
+                log.info("Acquired the subscription lease. Connecting to Backbone.");
+                currentReconnectBackoff = reconnectBackoff;
+                connect();
+            } else if (!leaseAcquired) {
+                if (leaseChanged) {
+                    log.warn("Lost the subscription lease. Disconnecting from Backbone.");
+                    disconnect();
+                }
+                connectionState = BackboneConnectionState.STANDBY;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void handleConnected() {
+        connectionState = BackboneConnectionState.CONNECTED;
+        currentReconnectBackoff = reconnectBackoff;
+        if (disconnectedSince == null) {
+            return;
+        }
+        Instant replaySince = getReplaySince();
+        disconnectedSince = null;
+        // The replay requests the TUD Assistance Backbone per user, so it must neither block the thread of the
+        // connection nor one of the broker
+        try {
+            backboneReplayTaskExecutor.execute(() -> replayMissedAssistance(replaySince));
+        } catch (TaskRejectedException e) {
+            log.error("Failed to schedule the replay of missed assistance - {}!", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void handleConnectionLost(Throwable throwable) {
+        // Both the failed connection attempt and the closed session may report the same loss
+        if (connectionState == BackboneConnectionState.DISCONNECTED) {
+            return;
+        }
+        stompSession = null;
+        if (!isSubscriptionAllowed()) {
+            connectionState = BackboneConnectionState.STANDBY;
+            return;
+        }
+        connectionState = BackboneConnectionState.DISCONNECTED;
+        if (disconnectedSince == null) {
+            disconnectedSince = clock.instant();
+        }
+        log.warn("Connection to Backbone lost - {}! Reconnecting in {} ms.",
+                throwable.getMessage(), currentReconnectBackoff);
+        messageBrokerTaskScheduler.schedule(this::connect, clock.instant().plusMillis(currentReconnectBackoff));
+        currentReconnectBackoff = Math.min(currentReconnectBackoff * 2, reconnectMaxBackoff);
+    }
+
+    @Override
+    public synchronized BackboneConnectionState getConnectionState() {
+        return connectionState;
+    }
+
+    @Override
+    public synchronized Instant getDisconnectedSince() {
+        return disconnectedSince;
+    }
+
+    private synchronized void handleSessionEstablished(StompSession session) {
+        // The lease may have been lost while connecting
+        if (!isSubscriptionAllowed()) {
+            session.disconnect();
+            return;
+        }
+        stompSession = session;
+    }
+
+    private boolean isSubscriptionAllowed() {
+        return !clusterEnabled || subscriptionLeaseHeld;
+    }
+
+    private void disconnect() {
+        connectionState = BackboneConnectionState.STANDBY;
+        disconnectedSince = null;
+        if (stompSession != null && stompSession.isConnected()) {
+            stompSession.disconnect();
+        }
+        stompSession = null;
+    }
+
+    private boolean tryAcquireSubscriptionLease() {
+        Instant now = clock.instant();
+        // The lease is renewed if this instance holds it, or taken over if it expired. If another instance holds a
+        // valid lease, the upsert fails, since a lease with the same name exists.
+        Query query = new Query(Criteria.where("_id").is(SUBSCRIPTION_LEASE_NAME)
+                .orOperator(Criteria.where("holderInstanceId").is(instanceId),
+                        Criteria.where("expirationTimestamp").lt(now)));
+        Update update = Update.update("holderInstanceId", instanceId)
+                .set("expirationTimestamp", now.plusSeconds(leaseRenewalInterval * 3));
+        try {
+            mongoTemplate.upsert(query, update, ClusterLease.class);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    private Instant getReplaySince() {
+        Instant replaySince = disconnectedSince.minus(REPLAY_MARGIN);
+        // The replayed period must not exceed the time the IDs of handled assistance objects are kept
+        Instant oldestReplaySince = clock.instant().minusSeconds(handledAssistanceTtl);
+        if (replaySince.isBefore(oldestReplaySince)) {
+            log.warn("Assistance created before {} is not replayed, since the outage lasted too long.",
+                    oldestReplaySince);
+            return oldestReplaySince;
+        }
+        return replaySince;
+    }
+
+    private void replayMissedAssistance(Instant replaySince) {
+        // Users that are not connected get the previous messages on their next login anyway. In cluster mode, only
+        // the instance holding the subscription replays, so the users connected to any instance are considered.
+        for (String userName : webSocketConnectionService.getConnectedUserNames()) {
+            try {
+                User user = userService.getUserByIdOrActorAccountName(userName);
+                List<AssistanceObjectRecord> recentAssistanceObjectRecords = tutorialModuleApi
+                        .searchForAssistanceObjects(List.of(new AssistanceParameterSearchParameter()
+                                .key("userId")
+                                .value(user.getActorAccountName())), null, null)
+                        .getAssistanceObjectRecords()
+                        .stream()
+                        .filter(assistanceObjectRecord ->
+                                !Instant.parse(assistanceObjectRecord.getTimestamp()).isBefore(replaySince))
+                        .toList();
+                if (recentAssistanceObjectRecords.isEmpty()) {
+                    continue;
+                }
+                // Assistance objects that were already handled by any instance are skipped. Their IDs are kept
+                // independently of the sent objects, which are removed once they are acknowledged.
+                Set<String> handledAssistanceObjectIds = handledAssistanceObjectRepository
+                        .getHandledAssistanceObjectsByAoIdIn(recentAssistanceObjectRecords
+                                .stream()
+                                .map(AssistanceObjectRecord::getAoId)
+                                .filter(Objects::nonNull)
+                                .toList())
+                        .stream()
+                        .map(HandledAssistanceObject::getAoId)
+                        .collect(Collectors.toSet());
+                List<AssistanceObjectRecord> missedAssistanceObjectRecords = recentAssistanceObjectRecords
+                        .stream()
+                        .filter(assistanceObjectRecord ->
+                                !handledAssistanceObjectIds.contains(assistanceObjectRecord.getAoId()))
+                        .toList();
+                if (missedAssistanceObjectRecords.isEmpty()) {
+                    continue;
+                }
+                AssistanceBundle assistanceBundle = new AssistanceBundle();
+                missedAssistanceObjectRecords
+                        .stream()
+                        .collect(Collectors.groupingBy(AssistanceObjectRecord::getaId, LinkedHashMap::new,
+                                Collectors.toList()))
+                        .forEach((aId, assistanceObjectRecords) -> assistanceBundle.addAssistanceItem(new Assistance()
+                                .aId(aId)
+                                .assistanceObjects(assistanceObjectRecords
+                                        .stream()
+                                        .map(this::toAssistanceObject)
+                                        .toList())));
+                log.info("Replay {} missed assistance objects for user {}.",
+                        missedAssistanceObjectRecords.size(), user.getActorAccountName());
+                assistanceDispatchService.dispatchAssistanceForUsers(assistanceBundle);
+            } catch (Exception e) {
+                log.error("Failed to replay missed assistance for user {} - {}!", userName, e.getMessage());
+            }
+        }
+    }
+
+    private AssistanceObject toAssistanceObject(AssistanceObjectRecord assistanceObjectRecord) {
+        return new AssistanceObject()
+                .aoId(assistanceObjectRecord.getAoId())
+                .userId(assistanceObjectRecord.getUserId())
+                .contextId(assistanceObjectRecord.getContextId())
+                .assistanceType(assistanceObjectRecord.getAssistanceType())
+                .timestamp(assistanceObjectRecord.getTimestamp())
+                .parameters(assistanceObjectRecord.getParameters());
+    }
+}
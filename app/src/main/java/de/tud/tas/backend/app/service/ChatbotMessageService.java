@@ -20,6 +20,8 @@ package de.tud.tas.backend.app.service;
 import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
 
+import java.util.List;
+
 /**
  * This is a class to handle the sending of messages via a WebSocket connection.
  */
@@ -32,4 +34,15 @@ public interface ChatbotMessageService {
      */
     void sendAssistanceCommunicationObjectToUser(User user, AssistanceCommunicationObject assistanceCommunicationObject);
 
+    /**
+     * The function that allows sending multiple assistance communication objects via a WebSocket connection to a
+     * user. If all clients of the user accept batching, the objects of the same context are sent as one message
+     * containing a list of the objects.
+     *
+     * @param user                           specific user
+     * @param assistanceCommunicationObjects assistance communication objects to be sent
+     */
+    void sendAssistanceCommunicationObjectsToUser(User user,
+                                                  List<AssistanceCommunicationObject> assistanceCommunicationObjects);
+
 }
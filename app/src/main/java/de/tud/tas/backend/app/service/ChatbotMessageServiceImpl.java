@@ -22,18 +22,19 @@ import de.tud.tas.backend.app.mapper.AssistanceCommunicationObjectMapper;
 import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class ChatbotMessageServiceImpl implements ChatbotMessageService {
     public final static String MESSAGE_DESTINATION = "/queue/chat/";
 
-    private final SimpMessagingTemplate simpMessagingTemplate;
     private final AssistanceCommunicationObjectMapper assistanceCommunicationObjectMapper;
+    private final WebSocketConnectionService webSocketConnectionService;
 
     @Override
     public void sendAssistanceCommunicationObjectToUser(User user,
@@ -41,14 +42,33 @@ public class ChatbotMessageServiceImpl implements ChatbotMessageService {
         if (assistanceCommunicationObject == null) {
             return;
         }
-        String contextId = assistanceCommunicationObject.getContextId();
-        if (contextId == null) {
-            contextId = "0";
-        }
-        String destination = MESSAGE_DESTINATION + contextId;
+        String destination = MESSAGE_DESTINATION + getContextId(assistanceCommunicationObject);
         AssistanceCommunicationObjectDto assistanceCommunicationObjectDto =
                 assistanceCommunicationObjectMapper.toAssistanceCommunicationObjectDto(assistanceCommunicationObject);
-        simpMessagingTemplate.convertAndSendToUser(
-                user.getId().toString(), destination, assistanceCommunicationObjectDto);
+        webSocketConnectionService.sendToUser(user.getId().toString(), destination, assistanceCommunicationObjectDto);
+    }
+
+    @Override
+    public void sendAssistanceCommunicationObjectsToUser(
+            User user, List<AssistanceCommunicationObject> assistanceCommunicationObjects) {
+        if (assistanceCommunicationObjects.size() == 1
+                || !webSocketConnectionService.isBatchingAccepted(user.getId().toString())) {
+            assistanceCommunicationObjects.forEach(assistanceCommunicationObject ->
+                    sendAssistanceCommunicationObjectToUser(user, assistanceCommunicationObject));
+            return;
+        }
+        assistanceCommunicationObjects
+                .stream()
+                .collect(Collectors.groupingBy(this::getContextId, LinkedHashMap::new, Collectors.toList()))
+                .forEach((contextId, assistanceCommunicationObjectsOfContext) -> webSocketConnectionService
+                        .sendToUser(user.getId().toString(), MESSAGE_DESTINATION + contextId,
+                                assistanceCommunicationObjectsOfContext
+                                        .stream()
+                                        .map(assistanceCommunicationObjectMapper::toAssistanceCommunicationObjectDto)
+                                        .toList()));
+    }
+
+    private String getContextId(AssistanceCommunicationObject assistanceCommunicationObject) {
+        return assistanceCommunicationObject.getContextId() == null ? "0" : assistanceCommunicationObject.getContextId();
     }
 }
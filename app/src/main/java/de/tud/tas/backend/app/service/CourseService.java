@@ -23,6 +23,7 @@ import de.tud.tas.backend.app.dto.CourseFeatureDto;
 import de.tud.tas.backend.app.model.CourseAssistanceType;
 import de.tud.tas.backend.app.model.CourseFeature;
 
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -43,11 +44,32 @@ public interface CourseService {
     CourseDto getCourseDto(String objectId);
 
     /**
-     * The function to retrieve all saved courses.
+     * The function to get the keys of the assistance types that are enabled for a specific course and whose
+     * pre-condition is fulfilled. The result is cached until the configuration of the course changes.
      *
-     * @return all saved courses
+     * @param objectId The object ID of the course
+     * @return keys of the enabled assistance types of the course
+     */
+    List<String> getEnabledAssistanceTypeKeys(String objectId);
+
+    /**
+     * The function to retrieve all saved courses. The courses can be requested page by page, the pagination is
+     * passed on to the TUD Assistance Backbone.
+     *
+     * @param page           The page that should be delivered, or null for the first page
+     * @param objectsPerPage The number of courses per page, or null for all courses
+     * @return all saved courses of the requested page
+     */
+    List<CourseDto> getAllCourseDtos(Integer page, Integer objectsPerPage);
+
+    /**
+     * The function to retrieve all saved courses page by page. The pages are requested from the TUD Assistance
+     * Backbone on demand while iterating, so only one page of courses is held in memory at once.
+     *
+     * @param objectsPerPage The number of courses per page
+     * @return iterator over the courses of each page
      */
-    List<CourseDto> getAllCourseDtos();
+    Iterator<List<CourseDto>> getCourseDtoPages(int objectsPerPage);
 
     /**
      * The function to get the course features of a specific course.
@@ -17,10 +17,13 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.service;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
 import de.tud.tas.backend.app.dto.AssistanceTypeDto;
 import de.tud.tas.backend.app.dto.CourseAssistanceTypeDto;
 import de.tud.tas.backend.app.dto.CourseDto;
 import de.tud.tas.backend.app.dto.CourseFeatureDto;
+import de.tud.tas.backend.app.event.CourseConfigurationChangedEvent;
 import de.tud.tas.backend.app.exceptions.CourseNotFoundException;
 import de.tud.tas.backend.app.exceptions.FeatureNotFoundException;
 import de.tud.tas.backend.app.mapper.AssistanceTypeMapper;
@@ -35,22 +38,35 @@ import de.tud.tas.backend.app.repository.CourseRepository;
 import de.tud.tas.backend.app.repository.FeatureRepository;
 import de.tud.tas.backend.app.util.StreamHelper;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.api.ExpertModuleApi;
-import de.tud.tas.backend.tud_assistance_backbone_api_client.api.ProvisioningApi;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.LearningContentObjectAttributeSearchParameter;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.LearningContentObjectList;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 @Service
 @RequiredArgsConstructor
 public class CourseServiceImpl implements CourseService {
+    /**
+     * Time in seconds after which a resolved course configuration is evicted from the cache, even if no change was
+     * published, e.g., because the supported assistance types of the TUD Assistance Backbone changed.
+     */
+    @Value("${tas-backend.course.configuration.cache.ttl}")
+    private Long courseConfigurationCacheTtl;
+
     private final AssistanceTypeMapper assistanceTypeMapper;
     private final AssistanceTypeService assistanceTypeService;
     private final CourseAssistanceTypeMapper courseAssistanceTypeMapper;
@@ -59,19 +75,36 @@ public class CourseServiceImpl implements CourseService {
     private final CourseRepository courseRepository;
     private final ExpertModuleApi expertModuleApi;
     private final FeatureRepository featureRepository;
-    private final ProvisioningApi provisioningApi;
+    private final SupportedAssistanceTypeService supportedAssistanceTypeService;
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    private LoadingCache<String, List<String>> enabledAssistanceTypeKeysByCourse;
+
+    @PostConstruct
+    public void initCourseConfigurationCache() {
+        enabledAssistanceTypeKeysByCourse = Caffeine.newBuilder()
+                .expireAfterWrite(courseConfigurationCacheTtl, TimeUnit.SECONDS)
+                .build(this::resolveEnabledAssistanceTypeKeys);
+    }
+
+    @EventListener
+    public void handleCourseConfigurationChanged(CourseConfigurationChangedEvent event) {
+        if (event.getObjectId() == null) {
+            enabledAssistanceTypeKeysByCourse.invalidateAll();
+        } else {
+            enabledAssistanceTypeKeysByCourse.invalidate(event.getObjectId());
+        }
+    }
 
     @Override
     @Transactional
     public void syncCourses() {
-        courseRepository.deleteCoursesByObjectIdNotIn(expertModuleApi.searchForLearningContentObjects(
-                        List.of(new LearningContentObjectAttributeSearchParameter()
-                                .key("lcoType")
-                                .value("ILIAS_COURSE")), null, null)
+        courseRepository.deleteCoursesByObjectIdNotIn(getCourseLcosFromAssistanceSystem(null, null)
                 .getLcos()
                 .stream()
                 .map(courseLco -> courseMapper.getObjectId(courseMapper.toCourseDto(courseLco)))
                 .toList());
+        applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this));
     }
 
     @Override
@@ -93,82 +126,87 @@ public class CourseServiceImpl implements CourseService {
 
         CourseDto courseLcoFromAssistanceSystem = courseMapper.toCourseDto(courseLcosFromAssistanceSystem.getLcos().get(0));
         Course courseFromDatabase = courseRepository.findById(objectId).orElse(null);
-        if (courseFromDatabase == null) {
-            courseLcoFromAssistanceSystem.setCourseAssistanceTypes(courseAssistanceTypesFromAssistanceSystem);
-            return courseLcoFromAssistanceSystem;
-        }
+        return mergeCourseDto(courseLcoFromAssistanceSystem, courseFromDatabase,
+                courseFromDatabase == null ? List.of() : featureRepository.findAll(),
+                courseAssistanceTypesFromAssistanceSystem);
+    }
 
-        List<Feature> featuresFromDatabase = featureRepository.findAll();
-        Map<String, CourseFeature> courseFeaturesByKey = courseFromDatabase.getCourseFeatures()
+    @Override
+    public List<String> getEnabledAssistanceTypeKeys(String objectId) {
+        // Unknown courses are not cached since the CourseNotFoundException is propagated by the cache
+        return enabledAssistanceTypeKeysByCourse.get(objectId);
+    }
+
+    @Override
+    public List<CourseDto> getAllCourseDtos(Integer page, Integer objectsPerPage) {
+        List<CourseDto> courseLcosFromAssistanceSystem = getCourseLcosFromAssistanceSystem(page, objectsPerPage)
+                .getLcos()
                 .stream()
-                .collect(Collectors.toMap((courseFeature) -> courseFeature.getFeature().getKey(), Function.identity()));
-        courseLcoFromAssistanceSystem.setCourseFeatures(featuresFromDatabase.stream().map(feature -> {
-                    CourseFeature courseFeature = new CourseFeature();
-                    courseFeature.setFeature(feature);
-                    courseFeature.setEnabled(courseFeaturesByKey.containsKey(feature.getKey())
-                            && courseFeaturesByKey.get(feature.getKey()).isEnabled());
-                    return courseFeatureMapper.toCourseFeatureDto(courseFeature);
-                })
-                .toList());
+                .map(courseMapper::toCourseDto)
+                .toList();
 
-        List<CourseAssistanceTypeDto> courseAssistanceTypesFromDatabase = courseFromDatabase.getCourseAssistanceTypes()
-                .stream().map(courseAssistanceTypeMapper::toCourseAssistanceTypeDto).toList();
-        courseLcoFromAssistanceSystem.setCourseAssistanceTypes(Stream.concat(
-                courseAssistanceTypesFromDatabase.stream().filter(
-                        StreamHelper.isContainedInCollection(courseAssistanceTypesFromAssistanceSystem,
-                                CourseAssistanceTypeDto::getKey)),
-                courseAssistanceTypesFromAssistanceSystem.stream().filter(
-                        StreamHelper.isNotContainedInCollection(courseAssistanceTypesFromDatabase,
-                                CourseAssistanceTypeDto::getKey))).toList());
-        return courseLcoFromAssistanceSystem;
+        // Everything that is shared by the courses is loaded once before the LCOs are merged in a single pass
+        Iterable<Course> coursesFromDatabase = objectsPerPage == null ? courseRepository.findAll() :
+                courseRepository.findAllById(courseLcosFromAssistanceSystem
+                        .stream()
+                        .map(courseMapper::getObjectId)
+                        .toList());
+        return mergeCourseDtos(courseLcosFromAssistanceSystem, coursesFromDatabase, featureRepository.findAll(),
+                getCourseAssistanceTypeDtosFromAssistanceSystem());
     }
 
     @Override
-    public List<CourseDto> getAllCourseDtos() {
-        LearningContentObjectList courseLcosFromAssistanceSystem = expertModuleApi.searchForLearningContentObjects(
-                List.of(new LearningContentObjectAttributeSearchParameter()
-                        .key("lcoType")
-                        .value("ILIAS_COURSE")), null, null);
-        Map<String, Course> coursesFromDatabaseById = courseRepository.findAll()
-                .stream()
-                .collect(Collectors.toMap(Course::getObjectId, Function.identity()));
+    public Iterator<List<CourseDto>> getCourseDtoPages(int objectsPerPage) {
+        final List<Feature> featuresFromDatabase = featureRepository.findAll();
         final List<CourseAssistanceTypeDto> courseAssistanceTypesFromAssistanceSystem =
                 getCourseAssistanceTypeDtosFromAssistanceSystem();
-        return courseLcosFromAssistanceSystem.getLcos()
-                .stream()
-                .map(courseMapper::toCourseDto)
-                .peek(courseDto -> {
-                    String objectId = courseMapper.getObjectId(courseDto);
-                    if (!coursesFromDatabaseById.containsKey(objectId)) {
-                        courseDto.setCourseAssistanceTypes(courseAssistanceTypesFromAssistanceSystem);
-                        return;
-                    }
-                    List<Feature> featuresFromDatabase = featureRepository.findAll();
-                    Map<String, CourseFeature> courseFeaturesByKey =
-                            coursesFromDatabaseById.get(objectId).getCourseFeatures()
-                                    .stream()
-                                    .collect(Collectors.toMap((courseFeature) -> courseFeature.getFeature().getKey(),
-                                            Function.identity()));
-                    courseDto.setCourseFeatures(featuresFromDatabase.stream().map(feature -> {
-                                CourseFeature courseFeature = new CourseFeature();
-                                courseFeature.setFeature(feature);
-                                courseFeature.setEnabled(courseFeaturesByKey.containsKey(feature.getKey())
-                                        && courseFeaturesByKey.get(feature.getKey()).isEnabled());
-                                return courseFeatureMapper.toCourseFeatureDto(courseFeature);
-                            })
-                            .toList());
-
-                    List<CourseAssistanceTypeDto> courseAssistanceTypesFromDatabase =
-                            coursesFromDatabaseById.get(objectId).getCourseAssistanceTypes()
-                                    .stream().map(courseAssistanceTypeMapper::toCourseAssistanceTypeDto).toList();
-                    courseDto.setCourseAssistanceTypes(Stream.concat(courseAssistanceTypesFromDatabase.stream().filter(
-                                    StreamHelper.isContainedInCollection(courseAssistanceTypesFromAssistanceSystem,
-                                            CourseAssistanceTypeDto::getKey)),
-                            courseAssistanceTypesFromAssistanceSystem.stream().filter(
-                                    StreamHelper.isNotContainedInCollection(courseAssistanceTypesFromDatabase,
-                                            CourseAssistanceTypeDto::getKey))).toList());
-                })
-                .toList();
+        return new Iterator<>() {
+            private int page = 1;
+            private int numberOfDeliveredCourses = 0;
+            private boolean lastPageLoaded = false;
+            private List<CourseDto> nextCoursePage;
+
+            @Override
+            public boolean hasNext() {
+                if (nextCoursePage == null && !lastPageLoaded) {
+                    nextCoursePage = loadNextCoursePage();
+                }
+                return nextCoursePage != null;
+            }
+
+            @Override
+            public List<CourseDto> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<CourseDto> coursePage = nextCoursePage;
+                nextCoursePage = null;
+                return coursePage;
+            }
+
+            private List<CourseDto> loadNextCoursePage() {
+                LearningContentObjectList courseLcoPage = getCourseLcosFromAssistanceSystem(page++, objectsPerPage);
+                if (courseLcoPage.getLcos().isEmpty()) {
+                    lastPageLoaded = true;
+                    return null;
+                }
+                List<CourseDto> courseLcosFromAssistanceSystem = courseLcoPage.getLcos()
+                        .stream()
+                        .map(courseMapper::toCourseDto)
+                        .toList();
+                numberOfDeliveredCourses += courseLcosFromAssistanceSystem.size();
+                lastPageLoaded = courseLcosFromAssistanceSystem.size() < objectsPerPage
+                        || (courseLcoPage.getTotalNumber() != null
+                        && numberOfDeliveredCourses >= courseLcoPage.getTotalNumber());
+                // Only the course documents of the current page are requested from the database
+                return mergeCourseDtos(courseLcosFromAssistanceSystem,
+                        courseRepository.findAllById(courseLcosFromAssistanceSystem
+                                .stream()
+                                .map(courseMapper::getObjectId)
+                                .toList()),
+                        featuresFromDatabase, courseAssistanceTypesFromAssistanceSystem);
+            }
+        };
     }
 
     @Override
@@ -186,6 +224,7 @@ public class CourseServiceImpl implements CourseService {
         Course course = courseMapper.toCourse(getCourseDto(objectId));
         course.setCourseFeatures(courseFeatures);
         courseRepository.save(course);
+        applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this, objectId));
 
         assistanceTypeService.updateCourseAssistanceTypesPreconditionFulfilledByKeys(course,
                 course.getCourseAssistanceTypes().stream().map(CourseAssistanceType::getKey).toList());
@@ -222,11 +261,72 @@ public class CourseServiceImpl implements CourseService {
 
         course.setCourseAssistanceTypes(courseAssistanceTypesToSet);
         courseRepository.save(course);
+        applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this, objectId));
         return courseAssistanceTypesToSet;
     }
 
+    private LearningContentObjectList getCourseLcosFromAssistanceSystem(Integer page, Integer objectsPerPage) {
+        return expertModuleApi.searchForLearningContentObjects(
+                List.of(new LearningContentObjectAttributeSearchParameter()
+                        .key("lcoType")
+                        .value("ILIAS_COURSE")), page, objectsPerPage);
+    }
+
+    private List<CourseDto> mergeCourseDtos(List<CourseDto> courseLcosFromAssistanceSystem,
+                                            Iterable<Course> coursesFromDatabase,
+                                            List<Feature> featuresFromDatabase,
+                                            List<CourseAssistanceTypeDto> courseAssistanceTypesFromAssistanceSystem) {
+        Map<String, Course> coursesFromDatabaseById = StreamSupport.stream(coursesFromDatabase.spliterator(), false)
+                .collect(Collectors.toMap(Course::getObjectId, Function.identity()));
+        return courseLcosFromAssistanceSystem
+                .stream()
+                .map(courseDto -> mergeCourseDto(courseDto,
+                        coursesFromDatabaseById.get(courseMapper.getObjectId(courseDto)),
+                        featuresFromDatabase, courseAssistanceTypesFromAssistanceSystem))
+                .toList();
+    }
+
+    private CourseDto mergeCourseDto(CourseDto courseLcoFromAssistanceSystem, Course courseFromDatabase,
+                                     List<Feature> featuresFromDatabase,
+                                     List<CourseAssistanceTypeDto> courseAssistanceTypesFromAssistanceSystem) {
+        if (courseFromDatabase == null) {
+            courseLcoFromAssistanceSystem.setCourseAssistanceTypes(courseAssistanceTypesFromAssistanceSystem);
+            return courseLcoFromAssistanceSystem;
+        }
+
+        Map<String, CourseFeature> courseFeaturesByKey = courseFromDatabase.getCourseFeatures()
+                .stream()
+                .collect(Collectors.toMap((courseFeature) -> courseFeature.getFeature().getKey(), Function.identity()));
+        courseLcoFromAssistanceSystem.setCourseFeatures(featuresFromDatabase.stream().map(feature -> {
+                    CourseFeature courseFeature = new CourseFeature();
+                    courseFeature.setFeature(feature);
+                    courseFeature.setEnabled(courseFeaturesByKey.containsKey(feature.getKey())
+                            && courseFeaturesByKey.get(feature.getKey()).isEnabled());
+                    return courseFeatureMapper.toCourseFeatureDto(courseFeature);
+                })
+                .toList());
+
+        List<CourseAssistanceTypeDto> courseAssistanceTypesFromDatabase = courseFromDatabase.getCourseAssistanceTypes()
+                .stream().map(courseAssistanceTypeMapper::toCourseAssistanceTypeDto).toList();
+        courseLcoFromAssistanceSystem.setCourseAssistanceTypes(StreamHelper.mergeByKey(
+                courseAssistanceTypesFromDatabase, courseAssistanceTypesFromAssistanceSystem,
+                CourseAssistanceTypeDto::getKey));
+        return courseLcoFromAssistanceSystem;
+    }
+
+    private List<String> resolveEnabledAssistanceTypeKeys(String objectId) {
+        return courseMapper
+                .toCourse(getCourseDto(objectId))
+                .getCourseAssistanceTypes()
+                .stream()
+                .filter(CourseAssistanceType::isEnabled)
+                .filter(CourseAssistanceType::isPreConditionFulfilled)
+                .map(CourseAssistanceType::getKey)
+                .toList();
+    }
+
     private List<CourseAssistanceTypeDto> getCourseAssistanceTypeDtosFromAssistanceSystem() {
-        return provisioningApi.getSupportedAssistanceTypes(null, null, null).getTypes()
+        return supportedAssistanceTypeService.getSupportedAssistanceTypes()
                 .stream().map(assistanceType -> {
                     AssistanceTypeDto assistanceTypeDto = assistanceTypeMapper.toAssistanceTypeDto(assistanceType);
                     CourseAssistanceTypeDto courseAssistanceTypeDto = new CourseAssistanceTypeDto();
@@ -17,6 +17,7 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.service;
 
+import de.tud.tas.backend.app.event.CourseConfigurationChangedEvent;
 import de.tud.tas.backend.app.exceptions.FeatureNotFoundException;
 import de.tud.tas.backend.app.model.*;
 import de.tud.tas.backend.app.model.*;
@@ -24,6 +25,7 @@ import de.tud.tas.backend.app.repository.AssistanceTypeRepository;
 import de.tud.tas.backend.app.repository.CourseRepository;
 import de.tud.tas.backend.app.repository.FeatureRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -37,6 +39,7 @@ public class FeatureServiceImpl implements FeatureService {
     private final AssistanceTypeService assistanceTypeService;
     private final CourseRepository courseRepository;
     private final FeatureRepository featureRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     @Override
     public List<Feature> getAllFeatures() {
@@ -104,6 +107,8 @@ public class FeatureServiceImpl implements FeatureService {
         courseRepository.saveAll(coursesToUpdate);
 
         featureRepository.delete(featureFromDatabase);
+        coursesToRemove.forEach(course -> applicationEventPublisher.publishEvent(
+                new CourseConfigurationChangedEvent(this, course.getObjectId())));
 
         for (Course course : coursesToUpdate) {
             assistanceTypeService.updateCourseAssistanceTypesPreconditionFulfilledByKeys(
@@ -19,8 +19,11 @@ package de.tud.tas.backend.app.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
+import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
 
+import java.util.Map;
+
 /**
  * This is a class to handle logging of different models.
  */
@@ -35,9 +38,10 @@ public interface LearningRecordLoggingService {
     /**
      * The function to log an assistance bundle.
      *
-     * @param assistanceBundle assistance bundle to log
+     * @param assistanceBundle        assistance bundle to log
+     * @param usersByActorAccountName already resolved users of the bundle mapped by their actor account name
      */
-    void logAssistanceBundle(AssistanceBundle assistanceBundle);
+    void logAssistanceBundle(AssistanceBundle assistanceBundle, Map<String, User> usersByActorAccountName);
 
     /**
      * The function to log an assistance object communication.
@@ -20,8 +20,8 @@ package de.tud.tas.backend.app.service;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import de.tud.tas.backend.app.exceptions.UserNotFoundException;
 import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
+import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.Assistance;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
 import lombok.RequiredArgsConstructor;
@@ -57,13 +57,13 @@ public class LearningRecordLoggingServiceImpl implements LearningRecordLoggingSe
     }
 
     @Override
-    public void logAssistanceBundle(AssistanceBundle assistanceBundle) {
+    public void logAssistanceBundle(AssistanceBundle assistanceBundle, Map<String, User> usersByActorAccountName) {
         try {
             for (Assistance assistance : assistanceBundle.getAssistance()) {
-                try {
-                    log.info("Recorded assistance bundle for learner '{}'",
-                        userService.getUserByActorAccountName(assistance.getUserId()).getActorAccountName());
-                } catch (UserNotFoundException e) {
+                User user = usersByActorAccountName.get(assistance.getUserId());
+                if (user != null) {
+                    log.info("Recorded assistance bundle for learner '{}'", user.getActorAccountName());
+                } else {
                     log.info("Recorded assistance bundle for unknown user '{}'", assistance.getUserId());
                 }
                 jsonLogger.info()
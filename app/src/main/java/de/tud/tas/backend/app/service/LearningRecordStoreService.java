@@ -0,0 +1,37 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.learning_locker_api_client.model.Statement;
+
+import java.util.List;
+
+/**
+ * This is a class that forwards generated statements to the Learning Locker. The statements are persisted in an
+ * outbox first and sent in batches and in order in the background, so they are not lost if the Learning Locker is
+ * not available. If several instances share the outbox, every batch is claimed and sent by a single instance.
+ */
+public interface LearningRecordStoreService {
+    /**
+     * The function to add statements to the outbox to be sent to the Learning Locker. The function does not wait for
+     * the statements to be sent.
+     *
+     * @param statements statements to be sent
+     */
+    void storeStatements(List<Statement> statements);
+}
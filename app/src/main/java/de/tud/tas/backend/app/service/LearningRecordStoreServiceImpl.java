@@ -0,0 +1,280 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tud.tas.backend.app.model.StatementOutboxEntry;
+import de.tud.tas.backend.app.provision.TimeProvider;
+import de.tud.tas.backend.app.repository.StatementOutboxEntryRepository;
+import de.tud.tas.backend.learning_locker_api_client.api.StatementsApi;
+import de.tud.tas.backend.learning_locker_api_client.model.Statement;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class LearningRecordStoreServiceImpl implements LearningRecordStoreService {
+    /**
+     * Maximum number of statements that are sent to the Learning Locker at once.
+     */
+    @Value("${tas-backend.learning-locker.forwarding.batch.size}")
+    private Integer batchSize;
+    /**
+     * Time in milliseconds a batch is held back at most to wait for further statements.
+     */
+    @Value("${tas-backend.learning-locker.forwarding.flush.interval}")
+    private Long flushInterval;
+    /**
+     * Time in milliseconds to wait before the first retry. The time is doubled for every further retry.
+     */
+    @Value("${tas-backend.learning-locker.forwarding.retry.backoff}")
+    private Long initialBackoff;
+    @Value("${tas-backend.learning-locker.forwarding.retry.max-backoff}")
+    private Long maxBackoff;
+    /**
+     * Time in milliseconds a claimed batch is reserved for the claiming instance. If the instance does not send the
+     * batch in time, e.g., because it stopped, another instance claims it.
+     */
+    @Value("${tas-backend.learning-locker.forwarding.lease}")
+    private Long leaseDuration;
+
+    private static final Logger log = LoggerFactory.getLogger(LearningRecordStoreServiceImpl.class);
+
+    private final MeterRegistry meterRegistry;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final StatementOutboxEntryRepository statementOutboxEntryRepository;
+    private final StatementsApi statementsApi;
+    private final TimeProvider timeProvider;
+    private TaskExecutor learningRecordStoreTaskExecutor;
+
+    private Timer flushTimer;
+    private volatile boolean running;
+
+    @Autowired
+    public void setLearningRecordStoreTaskExecutor(
+            @Qualifier("learningRecordStoreTaskExecutor") TaskExecutor taskExecutor) {
+        learningRecordStoreTaskExecutor = taskExecutor;
+    }
+
+    @PostConstruct
+    public void startForwarding() {
+        Gauge.builder("tas.learning-locker.queue.size", mongoTemplate,
+                        template -> template.estimatedCount(StatementOutboxEntry.class))
+                .description("Number of statements waiting in the outbox to be sent to the Learning Locker")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("tas.learning-locker.flush")
+                .description("Duration of sending a batch of statements to the Learning Locker")
+                .register(meterRegistry);
+        running = true;
+        learningRecordStoreTaskExecutor.execute(this::forwardStatements);
+    }
+
+    @PreDestroy
+    public void stopForwarding() {
+        // Statements that were not sent yet remain in the outbox and are sent after the next start
+        running = false;
+    }
+
+    @Override
+    public void storeStatements(List<Statement> statements) {
+        if (statements.isEmpty()) {
+            return;
+        }
+        List<StatementOutboxEntry> statementOutboxEntries = new ArrayList<>(statements.size());
+        for (Statement statement : statements) {
+            try {
+                statementOutboxEntries.add(new StatementOutboxEntry(null, objectMapper.writeValueAsString(statement),
+                        timeProvider.getCurrentTime(), null, null));
+            } catch (JsonProcessingException e) {
+                log.error("Failed to serialize statement {} for Learning Locker - {}!", statement.getId(),
+                        e.getMessage());
+            }
+        }
+        // All statements of a call are written with a single batched insert
+        statementOutboxEntryRepository.insert(statementOutboxEntries);
+    }
+
+    private void forwardStatements() {
+        long backoff = initialBackoff;
+        while (running) {
+            try {
+                List<StatementOutboxEntry> claimableEntries = mongoTemplate.find(
+                        getClaimableEntriesQuery(timeProvider.getCurrentTime()).limit(batchSize),
+                        StatementOutboxEntry.class);
+                if (claimableEntries.isEmpty()) {
+                    Thread.sleep(flushInterval);
+                    continue;
+                }
+                // Hold the batch back until it is full or its oldest statement waited for the flush interval
+                long remainingTime = flushInterval - Duration.between(claimableEntries.get(0).getCreatedTimestamp(),
+                        timeProvider.getCurrentTime()).toMillis();
+                if (claimableEntries.size() < batchSize && remainingTime > 0) {
+                    Thread.sleep(remainingTime);
+                    continue;
+                }
+
+                List<StatementOutboxEntry> batch = claimBatch();
+                if (batch.isEmpty()) {
+                    // The entries were claimed by another instance in the meantime
+                    continue;
+                }
+                if (sendBatch(batch)) {
+                    backoff = initialBackoff;
+                } else {
+                    log.warn("Failed to send {} statement(s) to Learning Locker, retrying in {} ms",
+                            batch.size(), backoff);
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, maxBackoff);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to read statement outbox - {}!", e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interruptedException) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims the oldest claimable entries with a single update, so that every entry is only sent by a single instance
+     * even if several instances share the outbox. Entries claimed by another instance in the meantime are not part of
+     * the returned batch.
+     */
+    private List<StatementOutboxEntry> claimBatch() {
+        LocalDateTime currentTime = timeProvider.getCurrentTime();
+        Query candidateQuery = getClaimableEntriesQuery(currentTime).limit(batchSize);
+        candidateQuery.fields().include("id");
+        List<String> candidateIds = mongoTemplate.find(candidateQuery, StatementOutboxEntry.class)
+                .stream()
+                .map(StatementOutboxEntry::getId)
+                .toList();
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+        String claimId = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(getClaimableEntriesQuery(currentTime)
+                        .addCriteria(Criteria.where("id").in(candidateIds)),
+                new Update()
+                        .set("claimId", claimId)
+                        .set("claimedUntil", currentTime.plus(Duration.ofMillis(leaseDuration))),
+                StatementOutboxEntry.class);
+        return mongoTemplate.find(new Query(Criteria.where("claimId").is(claimId))
+                        .with(Sort.by(Sort.Direction.ASC, "id")),
+                StatementOutboxEntry.class);
+    }
+
+    private Query getClaimableEntriesQuery(LocalDateTime currentTime) {
+        return new Query(new Criteria().orOperator(
+                Criteria.where("claimedUntil").is(null),
+                Criteria.where("claimedUntil").lt(currentTime)))
+                .with(Sort.by(Sort.Direction.ASC, "id"));
+    }
+
+    private boolean sendBatch(List<StatementOutboxEntry> batch) {
+        List<StatementOutboxEntry> readableEntries = new ArrayList<>(batch.size());
+        List<Statement> statements = new ArrayList<>(batch.size());
+        List<String> unreadableEntryIds = new ArrayList<>();
+        for (StatementOutboxEntry statementOutboxEntry : batch) {
+            try {
+                statements.add(objectMapper.readValue(statementOutboxEntry.getStatement(), Statement.class));
+                readableEntries.add(statementOutboxEntry);
+            } catch (JsonProcessingException e) {
+                log.error("Dropping unreadable statement outbox entry {} - {}!", statementOutboxEntry.getId(),
+                        e.getMessage());
+                unreadableEntryIds.add(statementOutboxEntry.getId());
+            }
+        }
+        if (!unreadableEntryIds.isEmpty()) {
+            statementOutboxEntryRepository.deleteAllById(unreadableEntryIds);
+        }
+        if (statements.isEmpty() || sendStatements(readableEntries, statements)) {
+            return true;
+        }
+        // The statements that were not sent yet can be claimed again right away
+        mongoTemplate.updateMulti(new Query(Criteria.where("claimId").is(batch.get(0).getClaimId())),
+                new Update().unset("claimId").unset("claimedUntil"), StatementOutboxEntry.class);
+        return false;
+    }
+
+    /**
+     * Sends the statements and removes their entries from the outbox. The Learning Locker rejects a batch as a whole
+     * if a single statement is invalid, so a rejected batch is split until only the rejected statements are dropped.
+     *
+     * @return false if the statements could not be sent temporarily and should be retried
+     */
+    private boolean sendStatements(List<StatementOutboxEntry> statementOutboxEntries, List<Statement> statements) {
+        try {
+            flushTimer.record(() -> statementsApi.storeStatements(statements));
+        } catch (HttpClientErrorException e) {
+            if (e.getStatusCode() == HttpStatus.UNAUTHORIZED || e.getStatusCode() == HttpStatus.FORBIDDEN
+                    || e.getStatusCode() == HttpStatus.TOO_MANY_REQUESTS) {
+                log.warn("Learning Locker rejected statement(s) temporarily - {}", e.getMessage());
+                return false;
+            }
+            if (statements.size() > 1) {
+                int middle = statements.size() / 2;
+                return sendStatements(statementOutboxEntries.subList(0, middle), statements.subList(0, middle))
+                        && sendStatements(statementOutboxEntries.subList(middle, statements.size()),
+                        statements.subList(middle, statements.size()));
+            }
+            // Retrying a statement that is rejected by the Learning Locker would block the outbox forever
+            log.error("Learning Locker rejected statement {}, dropping it - {}!", statements.get(0).getId(),
+                    e.getMessage());
+        } catch (Exception e) {
+            log.warn("Failed to send statement(s) to Learning Locker - {}", e.getMessage());
+            return false;
+        }
+        statementOutboxEntryRepository.deleteAllById(statementOutboxEntries
+                .stream()
+                .map(StatementOutboxEntry::getId)
+                .toList());
+        return true;
+    }
+}
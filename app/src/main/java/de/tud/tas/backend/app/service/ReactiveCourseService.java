@@ -0,0 +1,38 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * This is a class for handling courses without blocking the calling thread while the TUD Assistance Backbone is
+ * requested.
+ */
+public interface ReactiveCourseService {
+    /**
+     * The function to get the keys of the assistance types that are enabled for a specific course and whose
+     * pre-condition is fulfilled. The result is cached until the configuration of the course changes.
+     *
+     * @param objectId The object ID of the course
+     * @return keys of the enabled assistance types of the course, or a CourseNotFoundException if the course is not
+     * known
+     */
+    Mono<List<String>> getEnabledAssistanceTypeKeys(String objectId);
+}
@@ -0,0 +1,111 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import de.tud.tas.backend.app.event.CourseConfigurationChangedEvent;
+import de.tud.tas.backend.app.exceptions.CourseNotFoundException;
+import de.tud.tas.backend.app.mapper.CourseMapper;
+import de.tud.tas.backend.app.model.CourseAssistanceType;
+import de.tud.tas.backend.app.repository.CourseRepository;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.LearningContentObjectAttributeSearchParameter;
+import de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.api.ExpertModuleApi;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveCourseServiceImpl implements ReactiveCourseService {
+    @Value("${tas-backend.course.configuration.cache.ttl}")
+    private Long courseConfigurationCacheTtl;
+
+    private final AssistanceTypeService assistanceTypeService;
+    private final CourseMapper courseMapper;
+    private final CourseRepository courseRepository;
+    private final ExpertModuleApi reactiveExpertModuleApi;
+
+    private AsyncCache<String, List<String>> enabledAssistanceTypeKeysByCourse;
+
+    @PostConstruct
+    public void initCourseConfigurationCache() {
+        enabledAssistanceTypeKeysByCourse = Caffeine.newBuilder()
+                .expireAfterWrite(courseConfigurationCacheTtl, TimeUnit.SECONDS)
+                .buildAsync();
+    }
+
+    @EventListener
+    public void handleCourseConfigurationChanged(CourseConfigurationChangedEvent event) {
+        if (event.getObjectId() == null) {
+            enabledAssistanceTypeKeysByCourse.synchronous().invalidateAll();
+        } else {
+            enabledAssistanceTypeKeysByCourse.synchronous().invalidate(event.getObjectId());
+        }
+    }
+
+    @Override
+    public Mono<List<String>> getEnabledAssistanceTypeKeys(String objectId) {
+        // Failed lookups, e.g., of unknown courses, are removed from the cache
+        return Mono.fromFuture(enabledAssistanceTypeKeysByCourse.get(objectId,
+                (key, executor) -> resolveEnabledAssistanceTypeKeys(key).toFuture()));
+    }
+
+    private Mono<List<String>> resolveEnabledAssistanceTypeKeys(String objectId) {
+        return reactiveExpertModuleApi.searchForLearningContentObjects(
+                        List.of(new LearningContentObjectAttributeSearchParameter()
+                                .key(courseMapper.OBJECT_ID_PARAMETER_KEY)
+                                .value(objectId)), null, null)
+                .flatMap(courseLcosFromAssistanceSystem -> {
+                    if (courseLcosFromAssistanceSystem.getTotalNumber() == 0) {
+                        return Mono.error(new CourseNotFoundException(
+                                "Course with object ID '" + objectId + "' not found!"));
+                    }
+                    if (courseLcosFromAssistanceSystem.getTotalNumber() > 1) {
+                        return Mono.error(new IllegalStateException("Ambiguous object ID. "
+                                + courseLcosFromAssistanceSystem.getTotalNumber() + " LCOs were found!"));
+                    }
+                    // MongoDB is only accessible blocking, so it is queried on the bounded elastic scheduler
+                    return Mono.fromCallable(() -> getEnabledAssistanceTypeKeysFromDatabase(objectId))
+                            .subscribeOn(Schedulers.boundedElastic());
+                });
+    }
+
+    private List<String> getEnabledAssistanceTypeKeysFromDatabase(String objectId) {
+        // Assistance types without a stored configuration of the course have no fulfilled pre-condition
+        Set<String> supportedAssistanceTypeKeys = new HashSet<>(assistanceTypeService.getSupportedAssistanceTypeKeys());
+        return courseRepository.findById(objectId)
+                .map(course -> course.getCourseAssistanceTypes()
+                        .stream()
+                        .filter(courseAssistanceType -> supportedAssistanceTypeKeys.contains(courseAssistanceType.getKey()))
+                        .filter(CourseAssistanceType::isEnabled)
+                        .filter(CourseAssistanceType::isPreConditionFulfilled)
+                        .map(CourseAssistanceType::getKey)
+                        .toList())
+                .orElse(List.of());
+    }
+}
@@ -0,0 +1,42 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import reactor.core.publisher.Mono;
+
+/**
+ * This is a class that handles communication with the TUD Assistance Backbone without blocking the calling thread
+ * while the TUD Assistance Backbone is requested.
+ */
+public interface ReactiveTudAssistanceBackboneService {
+    /**
+     * The function to check whether statements should be processed with the non-blocking client.
+     *
+     * @return true, if the non-blocking processing is enabled
+     */
+    boolean isEnabled();
+
+    /**
+     * The function for handling a statement.
+     *
+     * @param statement statement to be sent
+     * @return a Mono that completes when the statement was processed by the TUD Assistance Backbone
+     */
+    Mono<Void> handleStatement(JsonNode statement);
+}
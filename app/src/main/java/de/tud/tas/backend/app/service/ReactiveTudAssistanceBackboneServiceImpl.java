@@ -0,0 +1,101 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.tud.tas.backend.app.exceptions.CourseNotFoundException;
+import de.tud.tas.backend.app.util.StatementHelper;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.StatementProcessingRequest;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.StatementProcessingRequestSupportedAssistanceTypesInner;
+import de.tud.tas.backend.tud_assistance_backbone_reactive_api_client.api.TutorialModuleApi;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.Base64;
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ReactiveTudAssistanceBackboneServiceImpl implements ReactiveTudAssistanceBackboneService {
+    @Value("${tas-backend.statement.processing.nonblocking}")
+    private boolean enabled;
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTudAssistanceBackboneServiceImpl.class);
+
+    private final AssistanceDispatchService assistanceDispatchService;
+    private final AssistanceTypeService assistanceTypeService;
+    private final LearningRecordLoggingService learningRecordLoggingService;
+    private final ReactiveCourseService reactiveCourseService;
+    private final TutorialModuleApi reactiveTutorialModuleApi;
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Mono<Void> handleStatement(JsonNode statement) {
+        // The statement is logged blocking, so it is done on the bounded elastic scheduler
+        return Mono.fromRunnable(() -> learningRecordLoggingService.logStatement(statement))
+                .subscribeOn(Schedulers.boundedElastic())
+                .then(getSupportedAssistanceTypesOfCourse(StatementHelper.getCourseObjectId(statement), statement))
+                .flatMap(supportedAssistanceTypes -> reactiveTutorialModuleApi.processXapiStatement(
+                        (new StatementProcessingRequest())
+                                .statement(statement)
+                                .supportedAssistanceTypes(supportedAssistanceTypes)))
+                // Returned assistance is dispatched like pushed assistance, so that the assistance of a learner stays in
+                // order. Dispatching waits if the queue of the worker is full, so it is done on the bounded elastic
+                // scheduler.
+                .flatMap(assistanceBundle -> Mono.fromRunnable(() -> assistanceDispatchService
+                                .dispatchAssistanceForUsers(assistanceBundle))
+                        .subscribeOn(Schedulers.boundedElastic()))
+                .then();
+    }
+
+    private Mono<List<StatementProcessingRequestSupportedAssistanceTypesInner>> getSupportedAssistanceTypesOfCourse(
+            String courseObjectId, JsonNode statement) {
+        if (courseObjectId == null) {
+            return Mono.fromSupplier(() -> {
+                log.info("Course object ID for received statement {} can not be determined.", statement.get("id"));
+                return toSupportedAssistanceTypes(assistanceTypeService.getSupportedAssistanceTypeKeys());
+            });
+        }
+
+        String courseObjectIdEncoded = Base64.getUrlEncoder().withoutPadding().encodeToString(courseObjectId.getBytes());
+        return Mono.defer(() -> reactiveCourseService.getEnabledAssistanceTypeKeys(courseObjectIdEncoded))
+                .doOnNext(enabledAssistanceTypeKeys -> log.info("Handle statement for course - " + courseObjectIdEncoded))
+                .onErrorResume(CourseNotFoundException.class, e -> {
+                    log.info("Course referenced in statement {} is not known.", statement.get("id"));
+                    return Mono.fromSupplier(assistanceTypeService::getSupportedAssistanceTypeKeys);
+                })
+                .map(this::toSupportedAssistanceTypes);
+    }
+
+    private List<StatementProcessingRequestSupportedAssistanceTypesInner> toSupportedAssistanceTypes(
+            List<String> assistanceTypeKeys) {
+        return assistanceTypeKeys
+                .stream()
+                .map(key -> new StatementProcessingRequestSupportedAssistanceTypesInner().key(key))
+                .toList();
+    }
+}
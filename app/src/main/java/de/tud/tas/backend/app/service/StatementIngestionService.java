@@ -0,0 +1,51 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * This is a class that buffers incoming statements and forwards them to the TUD Assistance Backbone asynchronously.
+ */
+public interface StatementIngestionService {
+    /**
+     * The function to check whether incoming statements should be ingested asynchronously.
+     *
+     * @return true if statements are ingested asynchronously
+     */
+    boolean isEnabled();
+
+    /**
+     * The function to accept a statement for asynchronous processing. If the statement queue is full, the function
+     * waits for the configured offer timeout before the statement is rejected.
+     *
+     * @param statement statement to be processed
+     */
+    void acceptStatement(JsonNode statement);
+
+    /**
+     * The function to accept multiple statements for asynchronous processing. The statements are rejected if the
+     * statement queue can not hold all of them within the offer timeout, and right away if they exceed the capacity
+     * of the queue. Either all statements are queued or none of them.
+     *
+     * @param statements statements to be processed
+     */
+    void acceptStatements(List<JsonNode> statements);
+}
@@ -0,0 +1,181 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import de.tud.tas.backend.app.exceptions.StatementBatchTooLargeException;
+import de.tud.tas.backend.app.exceptions.StatementQueueFullException;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+@Service
+@RequiredArgsConstructor
+public class StatementIngestionServiceImpl implements StatementIngestionService {
+    @Value("${tas-backend.statement.ingestion.async.enabled}")
+    private boolean enabled;
+    /**
+     * Maximum number of statements that are buffered before new statements are rejected.
+     */
+    @Value("${tas-backend.statement.ingestion.queue.capacity}")
+    private Integer queueCapacity;
+    @Value("${tas-backend.statement.ingestion.workers}")
+    private Integer numberOfWorkers;
+    /**
+     * Maximum number of statements a worker takes from the queue at once.
+     */
+    @Value("${tas-backend.statement.ingestion.batch.size}")
+    private Integer batchSize;
+    /**
+     * Time in milliseconds to wait for free capacity in the queue before a statement is rejected.
+     */
+    @Value("${tas-backend.statement.ingestion.offer.timeout}")
+    private Long offerTimeout;
+
+    private static final Logger log = LoggerFactory.getLogger(StatementIngestionServiceImpl.class);
+
+    private final TudAssistanceBackboneService tudAssistanceBackboneService;
+    private TaskExecutor statementIngestionTaskExecutor;
+
+    private BlockingQueue<JsonNode> statementQueue;
+    /**
+     * Free slots of the statement queue. They are reserved before statements are queued, so that a batch is either
+     * queued completely or not at all, and released by the workers when they take statements from the queue.
+     */
+    private Semaphore statementQueuePermits;
+    private volatile boolean running;
+
+    @Autowired
+    public void setStatementIngestionTaskExecutor(
+            @Qualifier("statementIngestionTaskExecutor") TaskExecutor taskExecutor) {
+        statementIngestionTaskExecutor = taskExecutor;
+    }
+
+    @PostConstruct
+    public void startWorkers() {
+        if (!enabled) {
+            return;
+        }
+        statementQueue = new ArrayBlockingQueue<>(queueCapacity);
+        statementQueuePermits = new Semaphore(queueCapacity);
+        running = true;
+        for (int i = 0; i < numberOfWorkers; i++) {
+            statementIngestionTaskExecutor.execute(this::drainStatementQueue);
+        }
+        log.info("Started {} worker(s) for asynchronous statement ingestion", numberOfWorkers);
+    }
+
+    @PreDestroy
+    public void stopWorkers() {
+        // The workers process the remaining statements before they terminate
+        running = false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void acceptStatement(JsonNode statement) {
+        if (!enabled) {
+            throw new IllegalStateException("Asynchronous statement ingestion is disabled!");
+        }
+        boolean accepted;
+        try {
+            accepted = statementQueuePermits.tryAcquire(offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            log.warn("Rejected statement {} since the statement queue is full.", statement.get("id"));
+            throw new StatementQueueFullException();
+        }
+        statementQueue.add(statement);
+    }
+
+    @Override
+    public void acceptStatements(List<JsonNode> statements) {
+        if (!enabled) {
+            throw new IllegalStateException("Asynchronous statement ingestion is disabled!");
+        }
+        // A batch that exceeds the capacity of the queue could never be queued, so retrying it would be pointless
+        if (statements.size() > queueCapacity) {
+            log.warn("Rejected {} statement(s) since the batch exceeds the queue capacity of {}.",
+                    statements.size(), queueCapacity);
+            throw new StatementBatchTooLargeException();
+        }
+        // The capacity for the whole batch is reserved at once, so a rejected batch can be retried completely
+        boolean accepted;
+        try {
+            accepted = statementQueuePermits.tryAcquire(statements.size(), offerTimeout, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            log.warn("Rejected {} statement(s) since the statement queue is full.", statements.size());
+            throw new StatementQueueFullException();
+        }
+        statementQueue.addAll(statements);
+    }
+
+    private void drainStatementQueue() {
+        List<JsonNode> batch = new ArrayList<>(batchSize);
+        while (running || !statementQueue.isEmpty()) {
+            try {
+                JsonNode statement = statementQueue.poll(1, TimeUnit.SECONDS);
+                if (statement == null) {
+                    continue;
+                }
+                batch.add(statement);
+                statementQueue.drainTo(batch, batchSize - 1);
+                statementQueuePermits.release(batch.size());
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<JsonNode> batch) {
+        try {
+            tudAssistanceBackboneService.handleStatements(batch);
+        } catch (Exception e) {
+            log.error("Failed to process batch of {} statement(s) - {}!", batch.size(), e.getMessage());
+        }
+    }
+}
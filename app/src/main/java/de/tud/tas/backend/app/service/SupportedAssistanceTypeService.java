@@ -0,0 +1,41 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceType;
+
+import java.util.List;
+
+/**
+ * This is a class that holds a local replica of the assistance types supported by the TUD Assistance Backbone.
+ */
+public interface SupportedAssistanceTypeService {
+    /**
+     * The function to get the assistance types supported by the TUD Assistance Backbone from the local replica. If
+     * the replica was not initialized yet, it is refreshed synchronously.
+     *
+     * @return all supported assistance types
+     */
+    List<AssistanceType> getSupportedAssistanceTypes();
+
+    /**
+     * The function to refresh the local replica. If the TUD Assistance Backbone provided an entity tag with the last
+     * response, the assistance types are requested conditionally.
+     */
+    void refreshSupportedAssistanceTypes();
+}
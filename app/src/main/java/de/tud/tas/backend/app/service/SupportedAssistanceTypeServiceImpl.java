@@ -0,0 +1,130 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.app.event.CourseConfigurationChangedEvent;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.api.ProvisioningApi;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceType;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceTypeList;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.Objects;
+
+@Service
+@RequiredArgsConstructor
+public class SupportedAssistanceTypeServiceImpl implements SupportedAssistanceTypeService {
+    private static final Logger log = LoggerFactory.getLogger(SupportedAssistanceTypeServiceImpl.class);
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final MeterRegistry meterRegistry;
+    private ProvisioningApi conditionalProvisioningApi;
+
+    private volatile List<AssistanceType> supportedAssistanceTypes;
+    private volatile String entityTag;
+    private volatile long lastRefreshTimestamp;
+    private Timer refreshTimer;
+
+    @Autowired
+    public void setConditionalProvisioningApi(
+            @Qualifier("conditionalProvisioningApi") ProvisioningApi provisioningApi) {
+        conditionalProvisioningApi = provisioningApi;
+    }
+
+    @PostConstruct
+    public void registerMetrics() {
+        refreshTimer = Timer.builder("tas.backbone.assistance-types.refresh")
+                .description("Duration of the refreshes of the supported assistance types replica")
+                .register(meterRegistry);
+        Gauge.builder("tas.backbone.assistance-types.staleness", this,
+                        service -> service.lastRefreshTimestamp == 0 ? Double.NaN :
+                                (System.currentTimeMillis() - service.lastRefreshTimestamp) / 1000.0)
+                .description("Seconds since the last successful refresh of the supported assistance types replica")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public List<AssistanceType> getSupportedAssistanceTypes() {
+        if (supportedAssistanceTypes == null) {
+            refreshSupportedAssistanceTypes();
+        }
+        return supportedAssistanceTypes;
+    }
+
+    @Override
+    public synchronized void refreshSupportedAssistanceTypes() {
+        // Null values of default headers are not sent, so the entity tag is only sent if a replica exists
+        conditionalProvisioningApi.getApiClient().addDefaultHeader(HttpHeaders.IF_NONE_MATCH,
+                supportedAssistanceTypes != null ? entityTag : null);
+
+        ResponseEntity<AssistanceTypeList> response;
+        try {
+            response = refreshTimer.record(() ->
+                    conditionalProvisioningApi.getSupportedAssistanceTypesWithHttpInfo(null, null, null));
+        } catch (RestClientException e) {
+            if (!isNotModified(e)) {
+                throw e;
+            }
+            response = null;
+        }
+        lastRefreshTimestamp = System.currentTimeMillis();
+        if (response == null) {
+            return;
+        }
+
+        List<AssistanceType> previousSupportedAssistanceTypes = supportedAssistanceTypes;
+        supportedAssistanceTypes = response.getBody() == null || response.getBody().getTypes() == null
+                ? List.of() : List.copyOf(response.getBody().getTypes());
+        entityTag = response.getHeaders().getETag();
+        if (previousSupportedAssistanceTypes != null
+                && !Objects.equals(getKeys(previousSupportedAssistanceTypes), getKeys(supportedAssistanceTypes))) {
+            log.info("Supported assistance types of the TUD Assistance Backbone changed - {}",
+                    getKeys(supportedAssistanceTypes));
+            // The enabled assistance types of the courses depend on the supported ones
+            applicationEventPublisher.publishEvent(new CourseConfigurationChangedEvent(this));
+        }
+    }
+
+    /**
+     * The client of the conditional requests reports a 304 as a RestClientResponseException with its status.
+     */
+    private static boolean isNotModified(RestClientException e) {
+        return e instanceof RestClientResponseException responseException
+                && responseException.getRawStatusCode() == HttpStatus.NOT_MODIFIED.value();
+    }
+
+    private static List<String> getKeys(List<AssistanceType> assistanceTypes) {
+        return assistanceTypes.stream().map(AssistanceType::getKey).toList();
+    }
+}
@@ -29,12 +29,23 @@ import java.util.List;
  */
 public interface TudAssistanceBackboneService {
     /**
-     * The function for handling a statement.
+     * The function for handling a statement. Assistance that the TUD Assistance Backbone returns synchronously is
+     * sent to the users directly.
      *
      * @param statement statement to be sent
      */
     void handleStatement(JsonNode statement);
 
+    /**
+     * The function for handling multiple statements at once. The configuration of each distinct course is resolved
+     * only once and the statements of different learners are processed in parallel. If statements can not be
+     * processed, the remaining statements are processed anyway and the IDs of the failed statements are reported.
+     *
+     * @param statements statements to be sent
+     * @throws de.tud.tas.backend.app.exceptions.StatementProcessingException if statements could not be processed
+     */
+    void handleStatements(List<JsonNode> statements);
+
     /**
      * The function to initiate assistance.
      *
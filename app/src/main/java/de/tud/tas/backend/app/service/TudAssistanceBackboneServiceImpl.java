@@ -18,25 +18,29 @@
 package de.tud.tas.backend.app.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import de.tud.tas.backend.app.dto.CourseDto;
 import de.tud.tas.backend.app.exceptions.CourseNotFoundException;
+import de.tud.tas.backend.app.exceptions.StatementProcessingException;
 import de.tud.tas.backend.app.factory.StatementFactory;
-import de.tud.tas.backend.app.mapper.CourseMapper;
-import de.tud.tas.backend.app.model.CourseAssistanceType;
 import de.tud.tas.backend.app.model.User;
-import de.tud.tas.backend.learning_locker_api_client.api.StatementsApi;
+import de.tud.tas.backend.app.util.Lazy;
+import de.tud.tas.backend.app.util.StatementHelper;
 import de.tud.tas.backend.learning_locker_api_client.model.Statement;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.api.TutorialModuleApi;
 import de.tud.tas.backend.tud_assistance_backbone_api_client.model.*;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Service;
 
-import java.util.Base64;
-import java.util.List;
-import java.util.UUID;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 @Service
 @RequiredArgsConstructor
@@ -48,100 +52,122 @@ public class TudAssistanceBackboneServiceImpl implements TudAssistanceBackboneSe
 
     private static final Logger log = LoggerFactory.getLogger(TudAssistanceBackboneServiceImpl.class);
 
+    private final AssistanceDispatchService assistanceDispatchService;
     private final AssistanceTypeService assistanceTypeService;
-    private final CourseMapper courseMapper;
     private final CourseService courseService;
     private final LearningRecordLoggingService learningRecordLoggingService;
+    private final LearningRecordStoreService learningRecordStoreService;
     private final StatementFactory statementFactory;
-    private final StatementsApi statementsApi;
     private final TutorialModuleApi tutorialModuleApi;
     private final UserService userService;
+    private TaskExecutor statementProcessingTaskExecutor;
+
+    @Autowired
+    public void setStatementProcessingTaskExecutor(
+            @Qualifier("statementProcessingTaskExecutor") TaskExecutor taskExecutor) {
+        statementProcessingTaskExecutor = taskExecutor;
+    }
 
     @Override
     public void handleStatement(JsonNode statement) {
         learningRecordLoggingService.logStatement(statement);
 
-        final StatementProcessingRequest statementProcessingRequest = (new StatementProcessingRequest())
-                .statement(statement)
-                .supportedAssistanceTypes(assistanceTypeService.getAssistanceTypeDtos()
+        // The supported assistance types of the TUD Assistance Backbone are only needed if no course is resolved.
+        // Returned assistance is dispatched like pushed assistance, so that the assistance of a learner stays in order.
+        assistanceDispatchService.dispatchAssistanceForUsers(tutorialModuleApi.processXapiStatement(
+                (new StatementProcessingRequest())
+                        .statement(statement)
+                        .supportedAssistanceTypes(getSupportedAssistanceTypesOfCourse(
+                                StatementHelper.getCourseObjectId(statement), statement,
+                                this::getSupportedAssistanceTypes))));
+    }
+
+    @Override
+    public void handleStatements(List<JsonNode> statements) {
+        statements.forEach(learningRecordLoggingService::logStatement);
+
+        // Resolve the supported assistance types only once per distinct course of the batch
+        final Lazy<List<StatementProcessingRequestSupportedAssistanceTypesInner>> supportedAssistanceTypes =
+                Lazy.of(this::getSupportedAssistanceTypes);
+        Map<String, List<StatementProcessingRequestSupportedAssistanceTypesInner>> supportedAssistanceTypesByCourse =
+                new HashMap<>();
+        // Statements of the same learner are processed sequentially to preserve their order
+        Map<String, List<StatementProcessingRequest>> statementProcessingRequestsByActor = new LinkedHashMap<>();
+        for (JsonNode statement : statements) {
+            String courseObjectId = StatementHelper.getCourseObjectId(statement);
+            List<StatementProcessingRequestSupportedAssistanceTypesInner> supportedAssistanceTypesOfCourse =
+                    courseObjectId == null
+                            ? getSupportedAssistanceTypesOfCourse(null, statement, supportedAssistanceTypes)
+                            : supportedAssistanceTypesByCourse.computeIfAbsent(courseObjectId, objectId ->
+                            getSupportedAssistanceTypesOfCourse(objectId, statement, supportedAssistanceTypes));
+            statementProcessingRequestsByActor
+                    .computeIfAbsent(statement.path("actor").path("account").path("name").asText(),
+                            actor -> new ArrayList<>())
+                    .add((new StatementProcessingRequest())
+                            .statement(statement)
+                            .supportedAssistanceTypes(supportedAssistanceTypesOfCourse));
+        }
+
+        AtomicInteger numberOfFailedStatements = new AtomicInteger();
+        Queue<String> failedStatementIds = new ConcurrentLinkedQueue<>();
+        CompletableFuture.allOf(statementProcessingRequestsByActor.values()
                         .stream()
-                        .map(assistanceType ->
-                                new StatementProcessingRequestSupportedAssistanceTypesInner()
-                                        .key(assistanceType.getKey()))
-                        .toList());
+                        .map(statementProcessingRequests -> CompletableFuture.runAsync(() -> {
+                            for (StatementProcessingRequest statementProcessingRequest : statementProcessingRequests) {
+                                AssistanceBundle assistanceBundle;
+                                try {
+                                    assistanceBundle = tutorialModuleApi.processXapiStatement(statementProcessingRequest);
+                                } catch (Exception e) {
+                                    JsonNode statementId =
+                                            ((JsonNode) statementProcessingRequest.getStatement()).get("id");
+                                    numberOfFailedStatements.incrementAndGet();
+                                    if (statementId != null && statementId.isTextual()) {
+                                        failedStatementIds.add(statementId.asText());
+                                    }
+                                    log.error("Failed to process statement {} - {}!", statementId, e.getMessage());
+                                    continue;
+                                }
+                                assistanceDispatchService.dispatchAssistanceForUsers(assistanceBundle);
+                            }
+                        }, statementProcessingTaskExecutor))
+                        .toArray(CompletableFuture[]::new))
+                .join();
+
+        if (numberOfFailedStatements.get() > 0) {
+            throw new StatementProcessingException(numberOfFailedStatements.get() + " of " + statements.size()
+                    + " statements could not be processed!", List.copyOf(failedStatementIds));
+        }
+    }
+
+    private List<StatementProcessingRequestSupportedAssistanceTypesInner> getSupportedAssistanceTypes() {
+        return assistanceTypeService.getSupportedAssistanceTypeKeys()
+                .stream()
+                .map(key -> new StatementProcessingRequestSupportedAssistanceTypesInner().key(key))
+                .toList();
+    }
 
-        final String courseObjectId = getCourseObjectId(statement);
+    private List<StatementProcessingRequestSupportedAssistanceTypesInner> getSupportedAssistanceTypesOfCourse(
+            String courseObjectId, JsonNode statement,
+            Supplier<List<StatementProcessingRequestSupportedAssistanceTypesInner>> supportedAssistanceTypes) {
         if (courseObjectId == null) {
             log.info("Course object ID for received statement {} can not be determined.", statement.get("id"));
-            tutorialModuleApi.processXapiStatement(
-                    statementProcessingRequest);
-            return;
+            return supportedAssistanceTypes.get();
         }
 
         String courseObjectIdEncoded = Base64.getUrlEncoder().withoutPadding().encodeToString(courseObjectId.getBytes());
-        CourseDto courseDto;
+        List<String> enabledAssistanceTypeKeys;
         try {
-            courseDto = courseService.getCourseDto(courseObjectIdEncoded);
+            enabledAssistanceTypeKeys = courseService.getEnabledAssistanceTypeKeys(courseObjectIdEncoded);
         } catch (CourseNotFoundException e) {
             log.info("Course referenced in statement {} is not known.", statement.get("id"));
-            tutorialModuleApi.processXapiStatement(statementProcessingRequest);
-            return;
+            return supportedAssistanceTypes.get();
         }
         log.info("Handle statement for course - " + courseObjectIdEncoded);
 
-        List<StatementProcessingRequestSupportedAssistanceTypesInner> courseAssistanceTypes = courseMapper
-                .toCourse(courseDto)
-                .getCourseAssistanceTypes()
+        return enabledAssistanceTypeKeys
                 .stream()
-                .filter(CourseAssistanceType::isEnabled)
-                .filter(CourseAssistanceType::isPreConditionFulfilled)
-                .map(courseAssistanceType ->
-                        new StatementProcessingRequestSupportedAssistanceTypesInner()
-                                .key(courseAssistanceType.getKey()))
+                .map(key -> new StatementProcessingRequestSupportedAssistanceTypesInner().key(key))
                 .toList();
-        tutorialModuleApi.processXapiStatement(
-                (new StatementProcessingRequest())
-                        .statement(statement)
-                        .supportedAssistanceTypes(courseAssistanceTypes));
-    }
-
-    private String getCourseObjectId(JsonNode statement) {
-        String courseTypeString = "http://adlnet.gov/expapi/activities/course";
-
-        if (statement.has("object")
-                && statement.get("object").has("definition")
-                && statement.get("object").get("definition").has("type")
-                && statement.get("object").get("definition").get("type").asText().equals(courseTypeString)) {
-            return statement.get("object").get("id").asText();
-        }
-
-        if (!statement.has("context") || !statement.get("context").has("contextActivities")) {
-            return null;
-        }
-        JsonNode parent = null;
-        if (statement.get("context").get("contextActivities").has("parent")) {
-            parent = statement.get("context").get("contextActivities").get("parent").get(0);
-        }
-        if (parent != null
-                && parent.has("definition")
-                && parent.get("definition").has("type")
-                && parent.get("definition").get("type").asText().equals(courseTypeString)) {
-            return parent.get("id").asText();
-        }
-
-        JsonNode grouping = statement.get("context").get("contextActivities").get("grouping");
-        if (grouping != null) {
-            for (JsonNode groupingElement : grouping) {
-                if (!groupingElement.has("definition") || !groupingElement.get("definition").has("type")) {
-                    continue;
-                }
-                if (groupingElement.get("definition").get("type").asText().equals(courseTypeString)) {
-                    return groupingElement.get("id").asText();
-                }
-            }
-        }
-
-        return null;
     }
 
     @Override
@@ -168,9 +194,9 @@ public class TudAssistanceBackboneServiceImpl implements TudAssistanceBackboneSe
         Statement statement = statementFactory.generateStatement(
                 user == null ? "anonymous" : user.getActorAccountName(), tudAssistanceBackboneUrl, "got_assisted_by", tudAssistanceBackboneUrl);
         try {
-            statementsApi.storeStatements(List.of(statement));
+            learningRecordStoreService.storeStatements(List.of(statement));
         } catch (Exception e) {
-            log.error("Failed to send statement for initiated assistance to Learning Locker - {}!", e.getMessage());
+            log.error("Failed to store statement for Learning Locker - {}!", e.getMessage());
         }
 
         return assistanceBundle;
@@ -17,7 +17,9 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.service;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import de.tud.tas.backend.app.model.User;
@@ -53,7 +55,17 @@ public interface UserService {
     User getUserByActorAccountName(String actorAccountName);
 
     /**
-     * The function to get a specific user by their actor account name or to create a user if it does not exist.
+     * The function to get several users by their actor account names with a single query.
+     * Actor account names without a saved user are not contained in the result.
+     *
+     * @param actorAccountNames actor account names of the users
+     * @return users mapped by their actor account name
+     */
+    Map<String, User> getUsersByActorAccountNames(Collection<String> actorAccountNames);
+
+    /**
+     * The function to get a specific user by their actor account name or to create a user if it does not exist. The
+     * user is read from the database instead of the cache, since it is used to check the credentials on login.
      *
      * @param actorAccountName actor account name of the user
      * @return specific user
@@ -102,6 +114,15 @@ public interface UserService {
      */
     void updateLongLivedTokenId(UUID userId, UUID longLivedTokenId);
 
+    /**
+     * The function to check whether a long-lived token ID is currently assigned to a user, i.e., whether the
+     * corresponding long-lived token is not revoked.
+     *
+     * @param longLivedTokenId long-lived token ID
+     * @return true if the long-lived token ID is valid
+     */
+    boolean isLongLivedTokenIdValid(UUID longLivedTokenId);
+
     /**
      * The function to update the lastLoggedInLmsUrl of a given user.
      *
@@ -17,26 +17,72 @@
  ***************************************************************************************/
 package de.tud.tas.backend.app.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import de.tud.tas.backend.app.exceptions.UserNotFoundException;
 import de.tud.tas.backend.app.model.User;
 import de.tud.tas.backend.app.model.UserLanguage;
 import de.tud.tas.backend.app.model.UserRole;
 import de.tud.tas.backend.app.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
-
+    /**
+     * Maximum number of users kept in the cache.
+     */
+    @Value("${tas-backend.user.cache.maximum-size}")
+    private Long userCacheMaximumSize;
+
+    /**
+     * Time in seconds after which a cached user is loaded again, so that changes made by other instances are picked
+     * up eventually.
+     */
+    @Value("${tas-backend.user.cache.ttl}")
+    private Long userCacheTtl;
+
+    private final MeterRegistry meterRegistry;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
+    private Cache<UUID, User> usersById;
+    private Cache<String, UUID> userIdsByActorAccountName;
+
+    @PostConstruct
+    public void initUserCache() {
+        usersById = Caffeine.newBuilder()
+                .maximumSize(userCacheMaximumSize)
+                .expireAfterWrite(userCacheTtl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        // The actor account name of a user never changes, but the user may be deleted and added again with a new ID
+        // by another instance
+        userIdsByActorAccountName = Caffeine.newBuilder()
+                .maximumSize(userCacheMaximumSize)
+                .expireAfterWrite(userCacheTtl, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, userIdsByActorAccountName, "userIdsByActorAccountName");
+    }
+
     @Override
     public List<User> getAllUsers() {
         return userRepository.findAll();
@@ -44,22 +90,42 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User getUser(UUID userId) {
-        return userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
+        User user = usersById.get(userId, id -> userRepository.findById(id).orElse(null));
+        if (user == null) {
+            throw new UserNotFoundException();
+        }
+        return user;
     }
 
     @Override
     public User getUserByActorAccountName(String actorAccountName) {
-        return userRepository.findByActorAccountName(actorAccountName).orElseThrow(UserNotFoundException::new);
+        // The user is loaded via the cache by ID, so that a load can not overwrite a concurrent invalidation
+        User user = usersById.get(getUserIdByActorAccountName(actorAccountName),
+                id -> userRepository.findById(id).orElse(null));
+        if (user == null) {
+            // The cached ID belongs to a user that was deleted, possibly by another instance, and may be outdated
+            userIdsByActorAccountName.invalidate(actorAccountName);
+            return getUser(getUserIdByActorAccountName(actorAccountName));
+        }
+        return user;
+    }
+
+    @Override
+    public Map<String, User> getUsersByActorAccountNames(Collection<String> actorAccountNames) {
+        if (actorAccountNames.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findByActorAccountNameIn(actorAccountNames)
+                .stream()
+                .collect(Collectors.toMap(User::getActorAccountName, Function.identity(), (first, second) -> first));
     }
 
     @Override
     @Transactional
     public User getUserByActorAccountNameOrAddUser(String actorAccountName) {
-        try {
-            return getUserByActorAccountName(actorAccountName);
-        } catch (UserNotFoundException e) {
-            return addUser(actorAccountName, UserRole.STUDENT);
-        }
+        // The password and role are checked on login, so changes made by other instances must not be missed
+        return userRepository.findByActorAccountName(actorAccountName)
+                .orElseGet(() -> addUser(actorAccountName, UserRole.STUDENT));
     }
 
     @Override
@@ -91,7 +157,11 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public void deleteUser(String actorAccountName) {
+        // The user may only be cached by ID, so the ID is loaded to invalidate both entries
+        Optional<User> user = userRepository.findByActorAccountName(actorAccountName);
         userRepository.deleteByActorAccountName(actorAccountName);
+        user.ifPresent(deletedUser -> usersById.invalidate(deletedUser.getId()));
+        userIdsByActorAccountName.invalidate(actorAccountName);
     }
 
     @Override
@@ -99,6 +169,12 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
         user.setLongLivedTokenId(longLivedTokenId);
         userRepository.save(user);
+        usersById.invalidate(userId);
+    }
+
+    @Override
+    public boolean isLongLivedTokenIdValid(UUID longLivedTokenId) {
+        return userRepository.existsByLongLivedTokenId(longLivedTokenId);
     }
 
     @Override
@@ -106,6 +182,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
         user.setLastLoggedInLmsUrl(lastLoggedInLmsUrl);
         userRepository.save(user);
+        usersById.invalidate(userId);
     }
 
     @Override
@@ -114,6 +191,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
         user.setRole(role);
         userRepository.save(user);
+        usersById.invalidate(userId);
         return user.getRole();
     }
 
@@ -123,6 +201,7 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
         user.setLanguage(language);
         userRepository.save(user);
+        usersById.invalidate(userId);
         return user.getLanguage();
     }
 
@@ -138,5 +217,17 @@ public class UserServiceImpl implements UserService {
         User user = userRepository.findById(userId).orElseThrow(UserNotFoundException::new);
         user.setPassword(passwordEncoder.encode(rawPassword));
         userRepository.save(user);
+        usersById.invalidate(userId);
+    }
+
+    private UUID getUserIdByActorAccountName(String actorAccountName) {
+        UUID userId = userIdsByActorAccountName.get(actorAccountName, name -> userRepository
+                .findByActorAccountName(name)
+                .map(User::getId)
+                .orElse(null));
+        if (userId == null) {
+            throw new UserNotFoundException();
+        }
+        return userId;
     }
 }
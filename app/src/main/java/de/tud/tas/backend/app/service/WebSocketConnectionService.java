@@ -0,0 +1,72 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import java.util.List;
+
+/**
+ * This is a class for tracking the WebSocket connections of the users across all instances of the TUD TAS Backend
+ * and for sending messages to the users regardless of the instance they are connected to.
+ */
+public interface WebSocketConnectionService {
+    /**
+     * The function to register a WebSocket session that was connected to this instance.
+     *
+     * @param sessionId        ID of the WebSocket session
+     * @param userName         name of the principal of the user
+     * @param batchingAccepted whether the client accepts batched messages
+     */
+    void registerConnection(String sessionId, String userName, boolean batchingAccepted);
+
+    /**
+     * The function to unregister a WebSocket session that was disconnected from this instance.
+     *
+     * @param sessionId ID of the WebSocket session
+     */
+    void unregisterConnection(String sessionId);
+
+    /**
+     * The function to confirm the WebSocket sessions of this instance, so that they do not expire.
+     */
+    void refreshConnections();
+
+    /**
+     * The function to get the names of all users that are connected to any instance.
+     *
+     * @return names of the connected users
+     */
+    List<String> getConnectedUserNames();
+
+    /**
+     * The function to check whether all clients a user is connected with accept batched messages.
+     *
+     * @param userName name of the principal of the user
+     * @return true, if the user is connected and all clients accept batched messages
+     */
+    boolean isBatchingAccepted(String userName);
+
+    /**
+     * The function to send a message to a user destination. If the user is connected to other instances, the message
+     * is routed to them, unless the external STOMP broker delivers it to them anyway.
+     *
+     * @param userName    name of the principal of the user
+     * @param destination user destination the message is sent to
+     * @param payload     payload of the message
+     */
+    void sendToUser(String userName, String destination, Object payload);
+}
@@ -0,0 +1,268 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tud.tas.backend.app.model.ClusterMessage;
+import de.tud.tas.backend.app.model.WebSocketConnection;
+import de.tud.tas.backend.app.repository.WebSocketConnectionRepository;
+import de.tud.tas.backend.app.util.Lazy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.messaging.ChangeStreamRequest;
+import org.springframework.data.mongodb.core.messaging.DefaultMessageListenerContainer;
+import org.springframework.data.mongodb.core.messaging.Message;
+import org.springframework.data.mongodb.core.messaging.MessageListenerContainer;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class WebSocketConnectionServiceImpl implements WebSocketConnectionService {
+    /**
+     * Whether the connections are shared between the instances. Otherwise, only the connections of this instance
+     * are known.
+     */
+    @Value("${tas-backend.cluster.enabled}")
+    private boolean clusterEnabled;
+    /**
+     * Whether the messages are relayed to an external STOMP broker, which delivers them to the sessions of the user on
+     * all instances. Then, the messages are not routed to other instances.
+     */
+    @Value("${tas-backend.stomp.broker.relay.enabled}")
+    private boolean brokerRelayEnabled;
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketConnectionServiceImpl.class);
+
+    private final String instanceId = UUID.randomUUID().toString();
+
+    private final Clock clock;
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final SimpMessagingTemplate simpMessagingTemplate;
+    private final SimpUserRegistry simpUserRegistry;
+    private final WebSocketConnectionRepository webSocketConnectionRepository;
+    private TaskExecutor clusterMessageListenerTaskExecutor;
+
+    private MessageListenerContainer clusterMessageListenerContainer;
+    private final Map<String, WebSocketConnection> localConnections = new ConcurrentHashMap<>();
+    /**
+     * The local connections indexed by the name of the user and the ID of the session, so that the connections of a
+     * user are found without scanning all sessions.
+     */
+    private final Map<String, Map<String, WebSocketConnection>> localConnectionsByUserName = new ConcurrentHashMap<>();
+    /**
+     * The object mapper of the message converter of the broker, so that pre-serialized payloads look exactly like
+     * the ones converted by the broker.
+     */
+    private final Lazy<ObjectMapper> payloadObjectMapper = Lazy.of(this::getBrokerObjectMapper);
+
+    @Autowired
+    public void setClusterMessageListenerTaskExecutor(
+            @Qualifier("clusterMessageListenerTaskExecutor") TaskExecutor taskExecutor) {
+        clusterMessageListenerTaskExecutor = taskExecutor;
+    }
+
+    @PostConstruct
+    public void startClusterMessageListener() {
+        if (!clusterEnabled) {
+            return;
+        }
+        // Only the messages for users connected to this instance are received
+        ChangeStreamRequest<ClusterMessage> changeStreamRequest = ChangeStreamRequest.builder(this::handleClusterMessage)
+                .collection(mongoTemplate.getCollectionName(ClusterMessage.class))
+                .filter(Aggregation.newAggregation(Aggregation.match(Criteria.where("operationType").is("insert")
+                        .and("fullDocument.targetInstanceId").is(instanceId))))
+                .build();
+        clusterMessageListenerContainer =
+                new DefaultMessageListenerContainer(mongoTemplate, clusterMessageListenerTaskExecutor);
+        clusterMessageListenerContainer.register(changeStreamRequest, ClusterMessage.class,
+                e -> log.error("Failed to receive cluster messages - {}!", e.getMessage()));
+        clusterMessageListenerContainer.start();
+    }
+
+    @PreDestroy
+    public void stopClusterMessageListener() {
+        if (clusterMessageListenerContainer != null) {
+            clusterMessageListenerContainer.stop();
+        }
+        if (clusterEnabled) {
+            mongoTemplate.remove(new Query(Criteria.where("instanceId").is(instanceId)), WebSocketConnection.class);
+        }
+    }
+
+    @Override
+    public void registerConnection(String sessionId, String userName, boolean batchingAccepted) {
+        WebSocketConnection webSocketConnection =
+                new WebSocketConnection(sessionId, userName, instanceId, batchingAccepted, clock.instant());
+        localConnections.put(sessionId, webSocketConnection);
+        // The index is only modified atomically per user, since the last removed connection also removes the user
+        localConnectionsByUserName.compute(userName, (key, connections) -> {
+            Map<String, WebSocketConnection> userConnections = connections != null
+                    ? connections
+                    : new ConcurrentHashMap<>();
+            userConnections.put(sessionId, webSocketConnection);
+            return userConnections;
+        });
+        if (!clusterEnabled) {
+            return;
+        }
+        webSocketConnectionRepository.save(webSocketConnection);
+    }
+
+    @Override
+    public void unregisterConnection(String sessionId) {
+        WebSocketConnection webSocketConnection = localConnections.remove(sessionId);
+        if (webSocketConnection != null) {
+            localConnectionsByUserName.computeIfPresent(webSocketConnection.getUserName(), (key, connections) -> {
+                connections.remove(sessionId);
+                return connections.isEmpty() ? null : connections;
+            });
+        }
+        if (!clusterEnabled) {
+            return;
+        }
+        webSocketConnectionRepository.deleteById(sessionId);
+    }
+
+    @Override
+    public void refreshConnections() {
+        if (!clusterEnabled) {
+            return;
+        }
+        mongoTemplate.updateMulti(new Query(Criteria.where("instanceId").is(instanceId)),
+                Update.update("lastSeenTimestamp", clock.instant()), WebSocketConnection.class);
+    }
+
+    @Override
+    public List<String> getConnectedUserNames() {
+        if (!clusterEnabled) {
+            return simpUserRegistry.getUsers().stream().map(SimpUser::getName).toList();
+        }
+        return mongoTemplate.findDistinct(new Query(), "userName", WebSocketConnection.class, String.class);
+    }
+
+    @Override
+    public boolean isBatchingAccepted(String userName) {
+        Collection<WebSocketConnection> webSocketConnections = clusterEnabled
+                ? webSocketConnectionRepository.findAllByUserName(userName)
+                : localConnectionsByUserName.getOrDefault(userName, Map.of()).values();
+        return !webSocketConnections.isEmpty()
+                && webSocketConnections.stream().allMatch(WebSocketConnection::isBatchingAccepted);
+    }
+
+    @Override
+    public void sendToUser(String userName, String destination, Object payload) {
+        // The payload is serialized once and reused for the local delivery and the routing to other instances
+        byte[] serializedPayload;
+        try {
+            serializedPayload = payloadObjectMapper.get().writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException(e);
+        }
+        if (brokerRelayEnabled || !clusterEnabled || simpUserRegistry.getUser(userName) != null) {
+            sendSerializedPayloadToUser(userName, destination, serializedPayload);
+        }
+        if (brokerRelayEnabled || !clusterEnabled) {
+            return;
+        }
+
+        // The user may be connected to other instances as well, e.g., with multiple tabs
+        List<String> targetInstanceIds = webSocketConnectionRepository.findAllByUserName(userName)
+                .stream()
+                .map(WebSocketConnection::getInstanceId)
+                .filter(connectionInstanceId -> !connectionInstanceId.equals(instanceId))
+                .distinct()
+                .toList();
+        if (targetInstanceIds.isEmpty()) {
+            return;
+        }
+        String serializedPayloadString = new String(serializedPayload, StandardCharsets.UTF_8);
+        mongoTemplate.insert(targetInstanceIds
+                .stream()
+                .map(targetInstanceId -> new ClusterMessage(null, targetInstanceId, userName, destination,
+                        serializedPayloadString, clock.instant()))
+                .toList(), ClusterMessage.class);
+    }
+
+    private void handleClusterMessage(Message<?, ClusterMessage> message) {
+        ClusterMessage clusterMessage = message.getBody();
+        if (clusterMessage == null) {
+            return;
+        }
+        try {
+            sendSerializedPayloadToUser(clusterMessage.getUserName(), clusterMessage.getDestination(),
+                    clusterMessage.getPayload().getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.error("Failed to send cluster message {} to user {} - {}!",
+                    clusterMessage.getId(), clusterMessage.getUserName(), e.getMessage());
+        }
+    }
+
+    private void sendSerializedPayloadToUser(String userName, String destination, byte[] serializedPayload) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        headerAccessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        headerAccessor.setLeaveMutable(true);
+        // Sending the message directly skips the message conversion, equivalent to convertAndSendToUser
+        simpMessagingTemplate.send(simpMessagingTemplate.getUserDestinationPrefix()
+                        + StringUtils.replace(userName, "/", "%2F") + destination,
+                MessageBuilder.createMessage(serializedPayload, headerAccessor.getMessageHeaders()));
+    }
+
+    private ObjectMapper getBrokerObjectMapper() {
+        if (simpMessagingTemplate.getMessageConverter() instanceof CompositeMessageConverter compositeMessageConverter) {
+            for (MessageConverter messageConverter : compositeMessageConverter.getConverters()) {
+                if (messageConverter instanceof MappingJackson2MessageConverter mappingJackson2MessageConverter) {
+                    return mappingJackson2MessageConverter.getObjectMapper();
+                }
+            }
+        }
+        return objectMapper;
+    }
+}
@@ -0,0 +1,68 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.util;
+
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.Assistance;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObject;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+public abstract class AssistanceBundleHelper {
+    /**
+     * Helper function to create a bundle that only contains the assistance objects matching a predicate. Assistance
+     * without matching objects is left out.
+     *
+     * @param assistanceBundle The bundle to be filtered.
+     * @param predicate        The predicate the assistance objects must match.
+     * @return A new bundle with copies of the assistance that contain the matching assistance objects.
+     */
+    public static AssistanceBundle filterAssistanceObjects(AssistanceBundle assistanceBundle,
+                                                           Predicate<AssistanceObject> predicate) {
+        AssistanceBundle filteredAssistanceBundle = new AssistanceBundle();
+        for (Assistance assistance : assistanceBundle.getAssistance()) {
+            List<AssistanceObject> assistanceObjects = assistance.getAssistanceObjects()
+                    .stream()
+                    .filter(predicate)
+                    .toList();
+            if (!assistanceObjects.isEmpty()) {
+                filteredAssistanceBundle.addAssistanceItem(copyAssistance(assistance, assistanceObjects));
+            }
+        }
+        return filteredAssistanceBundle;
+    }
+
+    /**
+     * Helper function to copy an assistance with other assistance objects.
+     *
+     * @param assistance        The assistance to be copied.
+     * @param assistanceObjects The assistance objects of the copy.
+     * @return The copy of the assistance.
+     */
+    public static Assistance copyAssistance(Assistance assistance, List<AssistanceObject> assistanceObjects) {
+        return new Assistance()
+                .aId(assistance.getaId())
+                .userId(assistance.getUserId())
+                .typeKey(assistance.getTypeKey())
+                .timestamp(assistance.getTimestamp())
+                .assistanceState(assistance.getAssistanceState())
+                .parameters(assistance.getParameters())
+                .assistanceObjects(assistanceObjects);
+    }
+}
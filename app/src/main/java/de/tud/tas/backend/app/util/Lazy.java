@@ -0,0 +1,55 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.util;
+
+import java.util.function.Supplier;
+
+/**
+ * A supplier that evaluates a given supplier at most once and returns the memorized value afterward. It can be used
+ * to defer expensive calls until their result is actually needed.
+ *
+ * @param <T> The type of the supplied value.
+ */
+public class Lazy<T> implements Supplier<T> {
+    private Supplier<T> supplier;
+    private T value;
+
+    private Lazy(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    /**
+     * Helper function to create a lazily evaluated supplier.
+     *
+     * @param supplier The supplier that should be evaluated on the first access.
+     * @param <T>      The type of the supplied value.
+     * @return A supplier that evaluates the given supplier at most once.
+     */
+    public static <T> Lazy<T> of(Supplier<T> supplier) {
+        return new Lazy<>(supplier);
+    }
+
+    @Override
+    public synchronized T get() {
+        if (supplier != null) {
+            value = supplier.get();
+            supplier = null;
+        }
+        return value;
+    }
+}
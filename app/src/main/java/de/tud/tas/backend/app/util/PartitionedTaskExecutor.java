@@ -0,0 +1,87 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.NonNull;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A set of single-threaded executors. The tasks of the same partition key are always executed by the same executor,
+ * so they are executed in the order they were submitted, while tasks of different keys are executed in parallel.
+ */
+public class PartitionedTaskExecutor implements InitializingBean, DisposableBean, MeterBinder {
+    private final String name;
+    private final List<ThreadPoolTaskExecutor> partitionTaskExecutors = new ArrayList<>();
+
+    /**
+     * This is the constructor of the class.
+     *
+     * @param name          The name of the executor, which prefixes the names of the threads and metrics.
+     * @param partitions    The number of single-threaded executors.
+     * @param queueCapacity The number of tasks that are queued per executor. If the queue is full, the submitting
+     *                      thread waits, since running the task itself would break the order.
+     */
+    public PartitionedTaskExecutor(String name, int partitions, int queueCapacity) {
+        this.name = name;
+        for (int partition = 0; partition < partitions; partition++) {
+            ThreadPoolTaskExecutor taskExecutor = TaskExecutorHelper.createBoundedTaskExecutor(
+                    name + "-" + partition + "-", 1, queueCapacity, "block");
+            taskExecutor.setWaitForTasksToCompleteOnShutdown(true);
+            taskExecutor.setAwaitTerminationSeconds(30);
+            partitionTaskExecutors.add(taskExecutor);
+        }
+    }
+
+    /**
+     * The function to execute a task after the previously submitted tasks of the same partition key.
+     *
+     * @param partitionKey The key that determines the executor.
+     * @param task         The task to be executed.
+     */
+    public void execute(Object partitionKey, Runnable task) {
+        partitionTaskExecutors.get(Math.floorMod(Objects.hashCode(partitionKey), partitionTaskExecutors.size()))
+                .execute(task);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        partitionTaskExecutors.forEach(ThreadPoolTaskExecutor::initialize);
+    }
+
+    @Override
+    public void destroy() {
+        partitionTaskExecutors.forEach(ThreadPoolTaskExecutor::shutdown);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry meterRegistry) {
+        for (int partition = 0; partition < partitionTaskExecutors.size(); partition++) {
+            new ExecutorServiceMetrics(partitionTaskExecutors.get(partition).getThreadPoolExecutor(),
+                    name + "-" + partition, List.of()).bindTo(meterRegistry);
+        }
+    }
+}
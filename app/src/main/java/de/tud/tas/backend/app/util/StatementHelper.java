@@ -0,0 +1,68 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+public abstract class StatementHelper {
+    /**
+     * Helper function to determine the object ID of the course a statement refers to. The course is either the object
+     * of the statement or a parent or grouping activity in its context.
+     *
+     * @param statement The statement to be checked.
+     * @return The object ID of the course, or null if the statement does not refer to a course.
+     */
+    public static String getCourseObjectId(JsonNode statement) {
+        String courseTypeString = "http://adlnet.gov/expapi/activities/course";
+
+        if (statement.has("object")
+                && statement.get("object").has("definition")
+                && statement.get("object").get("definition").has("type")
+                && statement.get("object").get("definition").get("type").asText().equals(courseTypeString)) {
+            return statement.get("object").get("id").asText();
+        }
+
+        if (!statement.has("context") || !statement.get("context").has("contextActivities")) {
+            return null;
+        }
+        JsonNode parent = null;
+        if (statement.get("context").get("contextActivities").has("parent")) {
+            parent = statement.get("context").get("contextActivities").get("parent").get(0);
+        }
+        if (parent != null
+                && parent.has("definition")
+                && parent.get("definition").has("type")
+                && parent.get("definition").get("type").asText().equals(courseTypeString)) {
+            return parent.get("id").asText();
+        }
+
+        JsonNode grouping = statement.get("context").get("contextActivities").get("grouping");
+        if (grouping != null) {
+            for (JsonNode groupingElement : grouping) {
+                if (!groupingElement.has("definition") || !groupingElement.get("definition").has("type")) {
+                    continue;
+                }
+                if (groupingElement.get("definition").get("type").asText().equals(courseTypeString)) {
+                    return groupingElement.get("id").asText();
+                }
+            }
+        }
+
+        return null;
+    }
+}
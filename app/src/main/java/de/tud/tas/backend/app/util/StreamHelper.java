@@ -18,8 +18,12 @@
 package de.tud.tas.backend.app.util;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public abstract class StreamHelper {
 
@@ -34,10 +38,8 @@ public abstract class StreamHelper {
      */
     public static <T> Predicate<T> isContainedInCollection(Collection<T> collection,
                                                            Function<? super T, Object> keyExtractor) {
-        return t -> collection.stream()
-                .filter(e -> keyExtractor.apply(t).equals(keyExtractor.apply(e)))
-                .findAny()
-                .orElse(null) != null;
+        Set<Object> keys = getKeys(collection, keyExtractor);
+        return t -> keys.contains(keyExtractor.apply(t));
     }
 
     /**
@@ -51,10 +53,35 @@ public abstract class StreamHelper {
      */
     public static <T> Predicate<T> isNotContainedInCollection(Collection<T> collection,
                                                               Function<? super T, Object> keyExtractor) {
-        return t -> collection.stream()
-                .filter(e -> keyExtractor.apply(t).equals(keyExtractor.apply(e)))
-                .findAny()
-                .orElse(null) == null;
+        Set<Object> keys = getKeys(collection, keyExtractor);
+        return t -> !keys.contains(keyExtractor.apply(t));
+    }
+
+    /**
+     * Helper function to merge two collections with regard to a user defined key. The elements of the preferred
+     * collection are kept if their key is contained in the base collection, followed by the elements of the base
+     * collection whose key is not contained in the preferred collection. The order of both collections and elements
+     * with duplicate keys are kept, and null keys are matched like any other key.
+     *
+     * @param preferredCollection The collection whose elements take precedence.
+     * @param baseCollection      The collection that defines which keys are valid.
+     * @param keyExtractor        The function to determine which key should be used to match the elements.
+     * @param <T>                 The type of the objects to merge.
+     * @return The merged list.
+     */
+    public static <T> List<T> mergeByKey(Collection<T> preferredCollection, Collection<T> baseCollection,
+                                         Function<? super T, Object> keyExtractor) {
+        return Stream.concat(
+                        preferredCollection.stream().filter(isContainedInCollection(baseCollection, keyExtractor)),
+                        baseCollection.stream().filter(isNotContainedInCollection(preferredCollection, keyExtractor)))
+                .toList();
+    }
+
+    private static <T> Set<Object> getKeys(Collection<T> collection, Function<? super T, Object> keyExtractor) {
+        // The keys are extracted once, so each check is a hash lookup instead of a scan of the whole collection
+        Set<Object> keys = new HashSet<>(collection.size() * 2);
+        collection.forEach(e -> keys.add(keyExtractor.apply(e)));
+        return keys;
     }
 
 }
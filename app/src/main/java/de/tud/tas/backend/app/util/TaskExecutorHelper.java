@@ -0,0 +1,90 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.util;
+
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+
+public abstract class TaskExecutorHelper {
+    /**
+     * Helper function to create a bounded thread pool. Its threads are named by the given prefix.
+     *
+     * @param threadNamePrefix The prefix of the names of the threads.
+     * @param poolSize         The number of threads of the pool.
+     * @param queueCapacity    The number of tasks that are queued if all threads are busy.
+     * @param rejectionPolicy  The policy that is applied if the queue is full, see {@link #getRejectedExecutionHandler}.
+     * @return The thread pool, which is not yet initialized.
+     */
+    public static ThreadPoolTaskExecutor createBoundedTaskExecutor(String threadNamePrefix, int poolSize,
+                                                                   int queueCapacity, String rejectionPolicy) {
+        ThreadPoolTaskExecutor taskExecutor = createBoundedTaskExecutor(poolSize, queueCapacity, rejectionPolicy);
+        taskExecutor.setThreadNamePrefix(threadNamePrefix);
+        return taskExecutor;
+    }
+
+    /**
+     * Helper function to create a bounded thread pool whose threads are named by its user, e.g., the channels of the
+     * message broker.
+     *
+     * @param poolSize        The number of threads of the pool.
+     * @param queueCapacity   The number of tasks that are queued if all threads are busy.
+     * @param rejectionPolicy The policy that is applied if the queue is full, see {@link #getRejectedExecutionHandler}.
+     * @return The thread pool, which is not yet initialized.
+     */
+    public static ThreadPoolTaskExecutor createBoundedTaskExecutor(int poolSize, int queueCapacity,
+                                                                   String rejectionPolicy) {
+        ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
+        taskExecutor.setCorePoolSize(poolSize);
+        taskExecutor.setMaxPoolSize(poolSize);
+        taskExecutor.setQueueCapacity(queueCapacity);
+        taskExecutor.setRejectedExecutionHandler(getRejectedExecutionHandler(rejectionPolicy));
+        return taskExecutor;
+    }
+
+    /**
+     * Helper function to map the name of a rejection policy to its handler.
+     *
+     * @param rejectionPolicy Either "abort", "block", "caller-runs", "discard" or "discard-oldest". With "block", the
+     *                        submitting thread waits until the queue has capacity, which keeps the order of the
+     *                        tasks.
+     * @return The handler that applies the rejection policy.
+     */
+    public static RejectedExecutionHandler getRejectedExecutionHandler(String rejectionPolicy) {
+        return switch (rejectionPolicy) {
+            case "abort" -> new ThreadPoolExecutor.AbortPolicy();
+            case "block" -> (runnable, executor) -> {
+                if (executor.isShutdown()) {
+                    throw new RejectedExecutionException("Executor has been shut down!");
+                }
+                try {
+                    executor.getQueue().put(runnable);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException(e);
+                }
+            };
+            case "caller-runs" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case "discard" -> new ThreadPoolExecutor.DiscardPolicy();
+            case "discard-oldest" -> new ThreadPoolExecutor.DiscardOldestPolicy();
+            default -> throw new IllegalArgumentException("Unknown rejection policy '" + rejectionPolicy + "'!");
+        };
+    }
+}
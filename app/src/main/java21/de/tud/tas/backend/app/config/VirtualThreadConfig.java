@@ -0,0 +1,134 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.config;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Runs the blocking workloads of the application on virtual threads. Only part of the build if the jdk21 profile is
+ * active.
+ */
+@Configuration
+@ConditionalOnProperty(value = "tas-backend.virtual-threads.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Replaces the pooled executors of the asynchronous tasks and the STOMP channels, since their bounds only limited
+     * the number of platform threads. The inbound channel remains limited, since its messages are handled with the
+     * connections to the TUD Assistance Backbone and MongoDB. The post processor is static, so it does not cause the
+     * configuration to be initialized too early.
+     *
+     * @param environment The environment to read the concurrency of the inbound channel from
+     * @return the post processor that replaces the executors
+     */
+    @Bean
+    public static BeanDefinitionRegistryPostProcessor virtualThreadExecutorRegistrar(Environment environment) {
+        return new BeanDefinitionRegistryPostProcessor() {
+            @Override
+            public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+                replaceTaskExecutor(registry, TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                        () -> createVirtualThreadTaskExecutor("task-", 0));
+                replaceTaskExecutor(registry, "clientInboundChannelExecutor",
+                        () -> createVirtualThreadTaskExecutor("clientInboundChannel-", environment.getRequiredProperty(
+                                "tas-backend.virtual-threads.stomp.concurrency", Integer.class)));
+                replaceTaskExecutor(registry, "clientOutboundChannelExecutor",
+                        () -> createVirtualThreadTaskExecutor("clientOutboundChannel-", 0));
+            }
+
+            @Override
+            public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+            }
+        };
+    }
+
+    /**
+     * The scheduler only runs a few tasks, so it keeps its pool, but with virtual threads.
+     *
+     * @return the post processor that lets the scheduler create virtual threads
+     */
+    @Bean
+    public static BeanPostProcessor virtualThreadSchedulerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof ThreadPoolTaskScheduler taskScheduler) {
+                    taskScheduler.setThreadFactory(
+                            Thread.ofVirtual().name(taskScheduler.getThreadNamePrefix(), 0).factory());
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Helper function to create an executor that starts a new virtual thread for every task.
+     *
+     * @param threadNamePrefix The prefix of the names of the threads.
+     * @param concurrencyLimit The number of tasks that run at once, or zero if it is not limited. Further tasks wait
+     *                         on their own virtual thread, so the submitting thread is never blocked.
+     * @return The executor.
+     */
+    static TaskExecutor createVirtualThreadTaskExecutor(String threadNamePrefix, int concurrencyLimit) {
+        ExecutorService executorService =
+                Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(threadNamePrefix, 0).factory());
+        if (concurrencyLimit <= 0) {
+            return new TaskExecutorAdapter(executorService);
+        }
+        Semaphore permits = new Semaphore(concurrencyLimit);
+        return task -> executorService.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                task.run();
+            } finally {
+                permits.release();
+            }
+        });
+    }
+
+    private static void replaceTaskExecutor(BeanDefinitionRegistry registry, String beanName,
+                                            Supplier<TaskExecutor> taskExecutorSupplier) {
+        // The aliases of the bean, e.g., taskExecutor, are kept
+        if (registry.containsBeanDefinition(beanName)) {
+            registry.removeBeanDefinition(beanName);
+        }
+        registry.registerBeanDefinition(beanName, new RootBeanDefinition(TaskExecutor.class, taskExecutorSupplier));
+    }
+}
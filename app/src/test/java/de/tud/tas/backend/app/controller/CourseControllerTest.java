@@ -0,0 +1,127 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tud.tas.backend.app.dto.CourseDto;
+import de.tud.tas.backend.app.exceptions.InvalidPaginationException;
+import de.tud.tas.backend.app.mapper.CourseAssistanceTypeMapper;
+import de.tud.tas.backend.app.mapper.CourseFeatureMapper;
+import de.tud.tas.backend.app.service.CourseService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CourseControllerTest {
+    private CourseService courseService;
+    private CourseController courseController;
+
+    @BeforeEach
+    void setUp() {
+        courseService = mock(CourseService.class);
+        courseController = new CourseController(mock(CourseAssistanceTypeMapper.class),
+                mock(CourseFeatureMapper.class), courseService, new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(courseController, "courseListingPageSize", 1);
+    }
+
+    @Test
+    void streamsAllCoursePagesAsArray() throws Exception {
+        when(courseService.getCourseDtoPages(anyInt()))
+                .thenReturn(List.of(List.of(course("a")), List.of(course("b"))).iterator());
+
+        assertThat(writeBody(courseController.getAllCourses(null, null).getBody()))
+                .startsWith("[")
+                .endsWith("]")
+                .contains("\"a\"", "\"b\"");
+    }
+
+    @Test
+    void failsBeforeTheResponseIsCommittedIfTheFirstPageFails() {
+        when(courseService.getCourseDtoPages(anyInt())).thenThrow(new IllegalStateException("backbone unavailable"));
+
+        assertThatThrownBy(() -> courseController.getAllCourses(null, null))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void rejectsInvalidPagination() {
+        assertThatThrownBy(() -> courseController.getAllCourses(1, null))
+                .isInstanceOf(InvalidPaginationException.class);
+        assertThatThrownBy(() -> courseController.getAllCourses(0, 10))
+                .isInstanceOf(InvalidPaginationException.class);
+        assertThatThrownBy(() -> courseController.getAllCourses(null, 0))
+                .isInstanceOf(InvalidPaginationException.class);
+    }
+
+    @Test
+    void leavesTheArrayOpenIfALaterPageFails() throws Exception {
+        when(courseService.getCourseDtoPages(anyInt())).thenReturn(new Iterator<>() {
+            private boolean firstPageDelivered = false;
+
+            @Override
+            public boolean hasNext() {
+                if (firstPageDelivered) {
+                    throw new IllegalStateException("backbone unavailable");
+                }
+                return true;
+            }
+
+            @Override
+            public List<CourseDto> next() {
+                if (firstPageDelivered) {
+                    throw new NoSuchElementException();
+                }
+                firstPageDelivered = true;
+                return List.of(course("a"));
+            }
+        });
+        StreamingResponseBody responseBody = courseController.getAllCourses(null, null).getBody();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertThatThrownBy(() -> responseBody.writeTo(outputStream)).isInstanceOf(IllegalStateException.class);
+        assertThat(outputStream.toString(StandardCharsets.UTF_8))
+                .startsWith("[")
+                .contains("\"a\"")
+                .doesNotEndWith("]");
+    }
+
+    private static CourseDto course(String objectId) {
+        CourseDto courseDto = new CourseDto();
+        courseDto.setObjectId(objectId);
+        return courseDto;
+    }
+
+    private static String writeBody(StreamingResponseBody responseBody) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        responseBody.writeTo(outputStream);
+        return outputStream.toString(StandardCharsets.UTF_8);
+    }
+}
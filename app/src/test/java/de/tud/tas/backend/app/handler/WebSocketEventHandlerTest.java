@@ -0,0 +1,91 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.handler;
+
+import de.tud.tas.backend.app.model.User;
+import de.tud.tas.backend.app.model.UserLanguage;
+import de.tud.tas.backend.app.model.UserRole;
+import de.tud.tas.backend.app.provision.TimeProvider;
+import de.tud.tas.backend.app.repository.WebSocketDisconnectRepository;
+import de.tud.tas.backend.app.service.UserService;
+import de.tud.tas.backend.app.service.WebSocketConnectionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+
+import java.security.Principal;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketEventHandlerTest {
+    private final Principal user = () -> "learner";
+
+    private UserService userService;
+    private WebSocketConnectionService webSocketConnectionService;
+    private WebSocketEventHandler webSocketEventHandler;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        webSocketConnectionService = mock(WebSocketConnectionService.class);
+        webSocketEventHandler = new WebSocketEventHandler(mock(TimeProvider.class), userService,
+                webSocketConnectionService, mock(WebSocketDisconnectRepository.class));
+    }
+
+    @Test
+    void registersTheSessionOnlyOnceTheConnectIsAccepted() {
+        Message<byte[]> connectMessage = createConnectMessage();
+        when(userService.getUserByIdOrActorAccountName("learner"))
+                .thenReturn(new User(UUID.randomUUID(), "learner", UserLanguage.DE, UserRole.STUDENT));
+
+        webSocketEventHandler.handleSessionConnect(new SessionConnectEvent(this, connectMessage, user));
+        verify(webSocketConnectionService, never()).registerConnection(anyString(), anyString(), anyBoolean());
+
+        webSocketEventHandler.handleSessionConnected(new SessionConnectedEvent(this, createConnectAck(connectMessage),
+                user));
+        verify(webSocketConnectionService).registerConnection("session", "learner", true);
+    }
+
+    private Message<byte[]> createConnectMessage() {
+        StompHeaderAccessor headerAccessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        headerAccessor.setSessionId("session");
+        headerAccessor.setUser(user);
+        headerAccessor.setNativeHeader(WebSocketEventHandler.BATCHING_HEADER, "true");
+        return MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+    }
+
+    private Message<byte[]> createConnectAck(Message<byte[]> connectMessage) {
+        SimpMessageHeaderAccessor headerAccessor = SimpMessageHeaderAccessor.create(SimpMessageType.CONNECT_ACK);
+        headerAccessor.setSessionId("session");
+        headerAccessor.setHeader(SimpMessageHeaderAccessor.CONNECT_MESSAGE_HEADER, connectMessage);
+        return MessageBuilder.createMessage(new byte[0], headerAccessor.getMessageHeaders());
+    }
+}
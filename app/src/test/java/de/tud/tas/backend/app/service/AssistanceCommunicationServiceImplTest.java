@@ -0,0 +1,178 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import de.tud.tas.backend.app.factory.StatementFactory;
+import de.tud.tas.backend.app.mapper.AssistanceCommunicationObjectMapper;
+import de.tud.tas.backend.app.model.AssistanceCommunicationObject;
+import de.tud.tas.backend.app.model.HandledAssistanceObject;
+import de.tud.tas.backend.app.model.User;
+import de.tud.tas.backend.app.model.UserLanguage;
+import de.tud.tas.backend.app.model.UserRole;
+import de.tud.tas.backend.app.provision.TimeProvider;
+import de.tud.tas.backend.app.repository.AssistanceCommunicationObjectRepository;
+import de.tud.tas.backend.app.repository.HandledAssistanceObjectRepository;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.api.TutorialModuleApi;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.Assistance;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObject;
+import org.bson.BsonDocument;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AssistanceCommunicationServiceImplTest {
+    private final User learner = new User(UUID.randomUUID(), "learner", UserLanguage.DE, UserRole.STUDENT);
+
+    private final Set<String> handledAssistanceObjectIds = new HashSet<>();
+
+    private AssistanceCommunicationObjectRepository assistanceCommunicationObjectRepository;
+    private ChatbotMessageService chatbotMessageService;
+    private LearningRecordLoggingService learningRecordLoggingService;
+    private AssistanceCommunicationServiceImpl assistanceCommunicationService;
+
+    @BeforeEach
+    void setUp() {
+        assistanceCommunicationObjectRepository = mock(AssistanceCommunicationObjectRepository.class);
+        chatbotMessageService = mock(ChatbotMessageService.class);
+        learningRecordLoggingService = mock(LearningRecordLoggingService.class);
+        assistanceCommunicationService = createAssistanceCommunicationService();
+    }
+
+    @Test
+    void skipsDuplicatesBeforeLoggingTheBundle() {
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1"));
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1", "2"));
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("2"));
+
+        ArgumentCaptor<AssistanceBundle> loggedAssistanceBundles = ArgumentCaptor.forClass(AssistanceBundle.class);
+        verify(learningRecordLoggingService, times(2)).logAssistanceBundle(loggedAssistanceBundles.capture(), anyMap());
+        assertThat(loggedAssistanceBundles.getAllValues())
+                .extracting(assistanceBundle -> assistanceBundle.getAssistance().get(0).getAssistanceObjects()
+                        .stream()
+                        .map(AssistanceObject::getAoId)
+                        .toList())
+                .containsExactly(List.of("1"), List.of("2"));
+        verify(chatbotMessageService, times(2)).sendAssistanceCommunicationObjectsToUser(eq(learner), anyList());
+    }
+
+    @Test
+    void skipsDuplicatesHandledByAnotherInstance() {
+        AssistanceCommunicationServiceImpl otherAssistanceCommunicationService =
+                createAssistanceCommunicationService();
+
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1"));
+        otherAssistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1", "1"));
+
+        verify(learningRecordLoggingService, times(1)).logAssistanceBundle(any(), anyMap());
+        verify(chatbotMessageService, times(1)).sendAssistanceCommunicationObjectsToUser(eq(learner), anyList());
+    }
+
+    @Test
+    void sendsAssistanceObjectsAgainIfTheirDeliveryFailed() {
+        doThrow(new IllegalStateException("broker unavailable")).doNothing()
+                .when(chatbotMessageService).sendAssistanceCommunicationObjectsToUser(eq(learner), anyList());
+
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1"));
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1"));
+        assistanceCommunicationService.handleAssistanceForUsers(createAssistanceBundle("1"));
+
+        verify(chatbotMessageService, times(2)).sendAssistanceCommunicationObjectsToUser(eq(learner), anyList());
+        // The objects stored for the failed delivery are removed, so that they are not stored twice
+        verify(assistanceCommunicationObjectRepository, times(1)).deleteAll(anyList());
+        assertThat(handledAssistanceObjectIds).containsExactly("1");
+    }
+
+    private AssistanceCommunicationServiceImpl createAssistanceCommunicationService() {
+        AssistanceCommunicationObjectMapper assistanceCommunicationObjectMapper =
+                mock(AssistanceCommunicationObjectMapper.class);
+        when(assistanceCommunicationObjectMapper.toAssistanceCommunicationObject(any(AssistanceObject.class),
+                anyString(), any(User.class))).thenAnswer(invocation -> new AssistanceCommunicationObject());
+        UserService userService = mock(UserService.class);
+        when(userService.getUsersByActorAccountNames(any())).thenReturn(Map.of("learner", learner));
+        // The handled assistance object IDs are shared by all instances
+        HandledAssistanceObjectRepository handledAssistanceObjectRepository =
+                mock(HandledAssistanceObjectRepository.class);
+        doAnswer(invocation -> {
+            invocation.<Collection<String>>getArgument(0).forEach(handledAssistanceObjectIds::remove);
+            return null;
+        }).when(handledAssistanceObjectRepository).deleteAllById(any());
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(HandledAssistanceObject.class)))
+                .thenAnswer(invocation -> createBulkInsert());
+        return new AssistanceCommunicationServiceImpl(assistanceCommunicationObjectMapper,
+                assistanceCommunicationObjectRepository, chatbotMessageService, handledAssistanceObjectRepository,
+                learningRecordLoggingService, mock(LearningRecordStoreService.class), mongoTemplate,
+                mock(StatementFactory.class), mock(TimeProvider.class), mock(TutorialModuleApi.class), userService);
+    }
+
+    private BulkOperations createBulkInsert() {
+        List<HandledAssistanceObject> insertedObjects = new ArrayList<>();
+        BulkOperations bulkOperations = mock(BulkOperations.class);
+        when(bulkOperations.insert(anyList())).thenAnswer(invocation -> {
+            insertedObjects.addAll(invocation.getArgument(0));
+            return bulkOperations;
+        });
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            List<BulkWriteError> errors = new ArrayList<>();
+            for (int index = 0; index < insertedObjects.size(); index++) {
+                if (!handledAssistanceObjectIds.add(insertedObjects.get(index).getAoId())) {
+                    errors.add(new BulkWriteError(11000, "duplicate key", new BsonDocument(), index));
+                }
+            }
+            if (!errors.isEmpty()) {
+                throw new BulkOperationException("duplicate key", new MongoBulkWriteException(
+                        BulkWriteResult.unacknowledged(), errors, null, new ServerAddress()));
+            }
+            return BulkWriteResult.unacknowledged();
+        });
+        return bulkOperations;
+    }
+
+    private AssistanceBundle createAssistanceBundle(String... aoIds) {
+        return new AssistanceBundle().addAssistanceItem(new Assistance()
+                .aId("assistance")
+                .userId("learner")
+                .assistanceObjects(List.of(aoIds)
+                        .stream()
+                        .map(aoId -> new AssistanceObject().aoId(aoId).userId("learner"))
+                        .toList()));
+    }
+}
@@ -0,0 +1,130 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.app.util.PartitionedTaskExecutor;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.Assistance;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class AssistanceDispatchServiceImplTest {
+    /**
+     * The IDs of the handled assistance objects per user, in the order they were handled.
+     */
+    private final Map<String, List<String>> handledAssistanceObjectIds = new ConcurrentHashMap<>();
+
+    private AssistanceCommunicationService assistanceCommunicationService;
+    private PartitionedTaskExecutor assistanceDispatchTaskExecutor;
+    private AssistanceDispatchServiceImpl assistanceDispatchService;
+
+    @BeforeEach
+    void setUp() {
+        assistanceCommunicationService = mock(AssistanceCommunicationService.class);
+        doAnswer(invocation -> {
+            AssistanceBundle assistanceBundle = invocation.getArgument(0);
+            for (Assistance assistance : assistanceBundle.getAssistance()) {
+                for (AssistanceObject assistanceObject : assistance.getAssistanceObjects()) {
+                    handledAssistanceObjectIds.computeIfAbsent(assistanceObject.getUserId(),
+                                    userId -> Collections.synchronizedList(new ArrayList<>()))
+                            .add(assistanceObject.getAoId());
+                }
+            }
+            return null;
+        }).when(assistanceCommunicationService).handleAssistanceForUsers(any());
+        assistanceDispatchTaskExecutor = new PartitionedTaskExecutor("assistance-dispatch", 4, 2);
+        assistanceDispatchTaskExecutor.afterPropertiesSet();
+        assistanceDispatchService = new AssistanceDispatchServiceImpl(assistanceCommunicationService);
+        assistanceDispatchService.setAssistanceDispatchTaskExecutor(assistanceDispatchTaskExecutor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        assistanceDispatchTaskExecutor.destroy();
+    }
+
+    @Test
+    void handlesTheAssistanceOfEachUserInTheOrderItWasDispatched() throws InterruptedException {
+        // Like the STOMP thread pushing assistance and a statement worker returning assistance at the same time
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> dispatchingThreads = new ArrayList<>();
+        for (String source : List.of("pushed", "returned")) {
+            dispatchingThreads.add(new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    assistanceDispatchService.dispatchAssistanceForUsers(createAssistanceBundle(source + "-" + i,
+                            "first-learner", "second-learner", "third-learner"));
+                }
+            }));
+        }
+        dispatchingThreads.forEach(Thread::start);
+        start.countDown();
+        for (Thread dispatchingThread : dispatchingThreads) {
+            dispatchingThread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+        assistanceDispatchTaskExecutor.destroy();
+
+        assertThat(handledAssistanceObjectIds).containsOnlyKeys("first-learner", "second-learner", "third-learner");
+        handledAssistanceObjectIds.values().forEach(assistanceObjectIds -> {
+            assertThat(assistanceObjectIds).hasSize(100);
+            for (String source : List.of("pushed", "returned")) {
+                assertThat(assistanceObjectIds.stream().filter(aoId -> aoId.startsWith(source)).toList())
+                        .isEqualTo(IntStream.range(0, 50).mapToObj(i -> source + "-" + i).toList());
+            }
+        });
+    }
+
+    @Test
+    void ignoresEmptyBundles() {
+        assistanceDispatchService.dispatchAssistanceForUsers(null);
+        assistanceDispatchService.dispatchAssistanceForUsers(new AssistanceBundle());
+
+        verifyNoInteractions(assistanceCommunicationService);
+    }
+
+    private AssistanceBundle createAssistanceBundle(String aoId, String... userIds) {
+        return new AssistanceBundle().addAssistanceItem(new Assistance()
+                .aId("assistance")
+                .assistanceObjects(List.of(userIds)
+                        .stream()
+                        .map(userId -> new AssistanceObject().aoId(aoId).userId(userId))
+                        .toList()));
+    }
+}
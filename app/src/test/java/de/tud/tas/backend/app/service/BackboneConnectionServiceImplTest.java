@@ -0,0 +1,236 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.app.model.BackboneConnectionState;
+import de.tud.tas.backend.app.model.ClusterLease;
+import de.tud.tas.backend.app.model.HandledAssistanceObject;
+import de.tud.tas.backend.app.model.User;
+import de.tud.tas.backend.app.model.UserLanguage;
+import de.tud.tas.backend.app.model.UserRole;
+import de.tud.tas.backend.app.repository.HandledAssistanceObjectRepository;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.api.TutorialModuleApi;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceBundle;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObject;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObjectRecord;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceObjectRecordList;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSessionHandler;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BackboneConnectionServiceImplTest {
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2024-01-01T12:00:00Z"), ZoneOffset.UTC);
+
+    /**
+     * The instance currently holding the subscription lease, shared by the instances like the lease document.
+     */
+    private final AtomicReference<BackboneConnectionServiceImpl> leaseHolder = new AtomicReference<>();
+
+    private WebSocketStompClient firstStompClient;
+    private WebSocketStompClient secondStompClient;
+    private BackboneConnectionServiceImpl firstInstance;
+    private BackboneConnectionServiceImpl secondInstance;
+
+    @BeforeEach
+    void setUp() {
+        firstStompClient = mockStompClient();
+        secondStompClient = mockStompClient();
+        firstInstance = createInstance(firstStompClient);
+        secondInstance = createInstance(secondStompClient);
+    }
+
+    @Test
+    void onlyTheInstanceHoldingTheLeaseSubscribes() {
+        firstInstance.connectOnStartup();
+        secondInstance.connectOnStartup();
+        firstInstance.renewSubscriptionLease();
+        secondInstance.renewSubscriptionLease();
+
+        verifyConnectionAttempts(firstStompClient, 1);
+        verifyConnectionAttempts(secondStompClient, 0);
+        assertThat(firstInstance.getConnectionState()).isEqualTo(BackboneConnectionState.CONNECTING);
+        assertThat(secondInstance.getConnectionState()).isEqualTo(BackboneConnectionState.STANDBY);
+    }
+
+    @Test
+    void anotherInstanceTakesOverTheReleasedLease() {
+        firstInstance.connectOnStartup();
+        secondInstance.connectOnStartup();
+
+        firstInstance.releaseSubscriptionLease();
+        secondInstance.renewSubscriptionLease();
+
+        verifyConnectionAttempts(firstStompClient, 1);
+        verifyConnectionAttempts(secondStompClient, 1);
+    }
+
+    @Test
+    void standbyInstanceDoesNotReconnect() {
+        firstInstance.connectOnStartup();
+        secondInstance.connectOnStartup();
+
+        secondInstance.handleConnectionLost(new IllegalStateException("connection closed"));
+        secondInstance.connect();
+
+        verifyConnectionAttempts(secondStompClient, 0);
+        assertThat(secondInstance.getConnectionState()).isEqualTo(BackboneConnectionState.STANDBY);
+    }
+
+    @Test
+    void replaysOnlyTheAssistanceObjectsThatWereNotHandled() {
+        AssistanceDispatchService assistanceDispatchService = mock(AssistanceDispatchService.class);
+        // Handled shortly before the outage, created before the replayed period, and missed during the outage
+        BackboneConnectionServiceImpl instance = createReplayingInstance(assistanceDispatchService, 86400L,
+                List.of(createAssistanceObjectRecord("handled", "2024-01-01T11:59:50Z"),
+                        createAssistanceObjectRecord("old", "2024-01-01T11:50:00Z"),
+                        createAssistanceObjectRecord("missed", "2024-01-01T12:00:00Z")));
+
+        instance.handleConnectionLost(new IllegalStateException("connection closed"));
+        instance.handleConnected();
+
+        assertThat(getReplayedAssistanceObjectIds(assistanceDispatchService)).containsExactly("missed");
+    }
+
+    @Test
+    void replaysOnlyTheAssistanceObjectsWhoseHandledIdsAreStillKept() {
+        AssistanceDispatchService assistanceDispatchService = mock(AssistanceDispatchService.class);
+        // The IDs of the objects handled before 11:59:45 are no longer kept
+        BackboneConnectionServiceImpl instance = createReplayingInstance(assistanceDispatchService, 15L,
+                List.of(createAssistanceObjectRecord("expired", "2024-01-01T11:59:40Z"),
+                        createAssistanceObjectRecord("missed", "2024-01-01T12:00:00Z")));
+
+        instance.handleConnectionLost(new IllegalStateException("connection closed"));
+        instance.handleConnected();
+
+        assertThat(getReplayedAssistanceObjectIds(assistanceDispatchService)).containsExactly("missed");
+    }
+
+    private BackboneConnectionServiceImpl createReplayingInstance(
+            AssistanceDispatchService assistanceDispatchService, Long handledAssistanceTtl,
+            List<AssistanceObjectRecord> assistanceObjectRecords) {
+        HandledAssistanceObjectRepository handledAssistanceObjectRepository =
+                mock(HandledAssistanceObjectRepository.class);
+        TutorialModuleApi tutorialModuleApi = mock(TutorialModuleApi.class);
+        UserService userService = mock(UserService.class);
+        WebSocketConnectionService webSocketConnectionService = mock(WebSocketConnectionService.class);
+        BackboneConnectionServiceImpl instance = new BackboneConnectionServiceImpl(assistanceDispatchService,
+                mock(AuthService.class), firstStompClient, CLOCK, handledAssistanceObjectRepository,
+                mock(MongoTemplate.class), tutorialModuleApi, userService, webSocketConnectionService);
+        ReflectionTestUtils.setField(instance, "reconnectBackoff", 1000L);
+        ReflectionTestUtils.setField(instance, "reconnectMaxBackoff", 60000L);
+        ReflectionTestUtils.setField(instance, "handledAssistanceTtl", handledAssistanceTtl);
+        ReflectionTestUtils.setField(instance, "connectionState", BackboneConnectionState.CONNECTED);
+        instance.setMessageBrokerTaskScheduler(mock(TaskScheduler.class));
+        instance.setBackboneReplayTaskExecutor(Runnable::run);
+        when(webSocketConnectionService.getConnectedUserNames()).thenReturn(List.of("learner"));
+        when(userService.getUserByIdOrActorAccountName("learner"))
+                .thenReturn(new User(UUID.randomUUID(), "learner", UserLanguage.DE, UserRole.STUDENT));
+        when(tutorialModuleApi.searchForAssistanceObjects(anyList(), any(), any()))
+                .thenReturn(new AssistanceObjectRecordList().assistanceObjectRecords(assistanceObjectRecords));
+        when(handledAssistanceObjectRepository.getHandledAssistanceObjectsByAoIdIn(any()))
+                .thenReturn(List.of(new HandledAssistanceObject("handled", Instant.parse("2024-01-01T11:59:50Z"))));
+        return instance;
+    }
+
+    private List<String> getReplayedAssistanceObjectIds(AssistanceDispatchService assistanceDispatchService) {
+        ArgumentCaptor<AssistanceBundle> replayedAssistanceBundle = ArgumentCaptor.forClass(AssistanceBundle.class);
+        verify(assistanceDispatchService).dispatchAssistanceForUsers(replayedAssistanceBundle.capture());
+        return replayedAssistanceBundle.getValue().getAssistance()
+                .stream()
+                .flatMap(assistance -> assistance.getAssistanceObjects().stream())
+                .map(AssistanceObject::getAoId)
+                .toList();
+    }
+
+    private AssistanceObjectRecord createAssistanceObjectRecord(String aoId, String timestamp) {
+        return new AssistanceObjectRecord()
+                .aoId(aoId)
+                .aId("assistance")
+                .userId("learner")
+                .timestamp(timestamp);
+    }
+
+    private BackboneConnectionServiceImpl createInstance(WebSocketStompClient stompClient) {
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        AuthService authService = mock(AuthService.class);
+        when(authService.createJwt(anyString(), any())).thenReturn("token");
+        BackboneConnectionServiceImpl instance = new BackboneConnectionServiceImpl(
+                mock(AssistanceDispatchService.class), authService, stompClient, CLOCK,
+                mock(HandledAssistanceObjectRepository.class), mongoTemplate, mock(TutorialModuleApi.class),
+                mock(UserService.class), mock(WebSocketConnectionService.class));
+        ReflectionTestUtils.setField(instance, "tudAssistanceBackboneUrl", "http://backbone");
+        ReflectionTestUtils.setField(instance, "reconnectBackoff", 1000L);
+        ReflectionTestUtils.setField(instance, "reconnectMaxBackoff", 60000L);
+        ReflectionTestUtils.setField(instance, "clusterEnabled", true);
+        ReflectionTestUtils.setField(instance, "leaseRenewalInterval", 30L);
+        // Like the upsert of the lease document, which fails if another instance holds a valid lease
+        when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(ClusterLease.class))).thenAnswer(invocation -> {
+            if (!leaseHolder.compareAndSet(null, instance) && leaseHolder.get() != instance) {
+                throw new DuplicateKeyException("lease is held by another instance");
+            }
+            return null;
+        });
+        when(mongoTemplate.remove(any(Query.class), eq(ClusterLease.class))).thenAnswer(invocation -> {
+            leaseHolder.compareAndSet(instance, null);
+            return null;
+        });
+        return instance;
+    }
+
+    private WebSocketStompClient mockStompClient() {
+        WebSocketStompClient stompClient = mock(WebSocketStompClient.class);
+        when(stompClient.connect(anyString(), nullable(WebSocketHttpHeaders.class), any(StompHeaders.class),
+                any(StompSessionHandler.class))).thenReturn(new SettableListenableFuture<>());
+        return stompClient;
+    }
+
+    private void verifyConnectionAttempts(WebSocketStompClient stompClient, int connectionAttempts) {
+        verify(stompClient, connectionAttempts == 0 ? never() : times(connectionAttempts)).connect(anyString(),
+                nullable(WebSocketHttpHeaders.class), any(StompHeaders.class), any(StompSessionHandler.class));
+    }
+}
@@ -0,0 +1,185 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tud.tas.backend.app.model.StatementOutboxEntry;
+import de.tud.tas.backend.app.provision.TimeProvider;
+import de.tud.tas.backend.app.repository.StatementOutboxEntryRepository;
+import de.tud.tas.backend.learning_locker_api_client.api.StatementsApi;
+import de.tud.tas.backend.learning_locker_api_client.model.Statement;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LearningRecordStoreServiceImplTest {
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private MongoTemplate mongoTemplate;
+    private StatementOutboxEntryRepository statementOutboxEntryRepository;
+    private StatementsApi statementsApi;
+    private LearningRecordStoreServiceImpl learningRecordStoreService;
+
+    @BeforeEach
+    void setUp() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        mongoTemplate = mock(MongoTemplate.class);
+        statementOutboxEntryRepository = mock(StatementOutboxEntryRepository.class);
+        statementsApi = mock(StatementsApi.class);
+        TimeProvider timeProvider = mock(TimeProvider.class);
+        when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.of(2024, 1, 1, 12, 0));
+        learningRecordStoreService = new LearningRecordStoreServiceImpl(meterRegistry, mongoTemplate, objectMapper,
+                statementOutboxEntryRepository, statementsApi, timeProvider);
+        ReflectionTestUtils.setField(learningRecordStoreService, "batchSize", 10);
+        ReflectionTestUtils.setField(learningRecordStoreService, "leaseDuration", 60000L);
+        ReflectionTestUtils.setField(learningRecordStoreService, "flushTimer", Timer.builder("flush")
+                .register(meterRegistry));
+    }
+
+    @Test
+    void dropsOnlyTheStatementsRejectedByTheLearningLocker() {
+        List<StatementOutboxEntry> batch = List.of(entry("1"), entry("2"), entry("bad"), entry("4"), entry("5"));
+        when(statementsApi.storeStatements(anyList())).thenAnswer(invocation -> {
+            List<Statement> statements = invocation.getArgument(0);
+            if (statements.stream().anyMatch(statement -> statement.getId().equals("bad"))) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            return statements.stream().map(Statement::getId).toList();
+        });
+
+        boolean sent = ReflectionTestUtils.invokeMethod(learningRecordStoreService, "sendBatch", batch);
+
+        assertThat(sent).isTrue();
+        assertThat(getDeletedEntryIds()).containsExactlyInAnyOrder("1", "2", "bad", "4", "5");
+        assertThat(getStoredStatementIds()).contains("1", "2", "4", "5");
+    }
+
+    @Test
+    void releasesTheClaimIfTheLearningLockerIsTemporarilyUnavailable() {
+        List<StatementOutboxEntry> batch = List.of(entry("1"), entry("2"));
+        when(statementsApi.storeStatements(anyList()))
+                .thenThrow(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+
+        boolean sent = ReflectionTestUtils.invokeMethod(learningRecordStoreService, "sendBatch", batch);
+
+        assertThat(sent).isFalse();
+        verify(statementOutboxEntryRepository, never()).deleteAllById(any());
+        ArgumentCaptor<Query> releasedEntries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).updateMulti(releasedEntries.capture(), any(Update.class),
+                eq(StatementOutboxEntry.class));
+        assertThat(releasedEntries.getValue().getQueryObject().get("claimId")).isEqualTo("claim");
+    }
+
+    @Test
+    void keepsTheStatementsSentBeforeATemporaryFailure() {
+        List<StatementOutboxEntry> batch = List.of(entry("1"), entry("bad"), entry("3"), entry("4"));
+        when(statementsApi.storeStatements(anyList())).thenAnswer(invocation -> {
+            List<Statement> statements = invocation.getArgument(0);
+            if (statements.stream().anyMatch(statement -> statement.getId().equals("bad"))) {
+                throw new HttpClientErrorException(HttpStatus.BAD_REQUEST);
+            }
+            if (statements.stream().anyMatch(statement -> statement.getId().equals("3"))) {
+                throw new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS);
+            }
+            return statements.stream().map(Statement::getId).toList();
+        });
+
+        boolean sent = ReflectionTestUtils.invokeMethod(learningRecordStoreService, "sendBatch", batch);
+
+        assertThat(sent).isFalse();
+        assertThat(getDeletedEntryIds()).containsExactlyInAnyOrder("1", "bad");
+        verify(mongoTemplate).updateMulti(any(Query.class), any(Update.class), eq(StatementOutboxEntry.class));
+    }
+
+    @Test
+    void claimsTheCandidatesWithASingleUpdate() {
+        when(mongoTemplate.find(any(Query.class), eq(StatementOutboxEntry.class)))
+                .thenReturn(List.of(entry("1"), entry("2"), entry("3")), List.of(entry("1"), entry("3")));
+
+        List<StatementOutboxEntry> batch =
+                ReflectionTestUtils.invokeMethod(learningRecordStoreService, "claimBatch");
+
+        // Entry 2 was claimed by another instance between reading the candidates and claiming them
+        assertThat(batch).extracting(StatementOutboxEntry::getId).containsExactly("1", "3");
+        ArgumentCaptor<Query> claimedEntries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> claim = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(1)).updateMulti(claimedEntries.capture(), claim.capture(),
+                eq(StatementOutboxEntry.class));
+        assertThat(claimedEntries.getValue().getQueryObject().get("id"))
+                .isEqualTo(new Document("$in", List.of("1", "2", "3")));
+        assertThat(claimedEntries.getValue().getQueryObject()).containsKey("$or");
+        ArgumentCaptor<Query> readEntries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).find(readEntries.capture(), eq(StatementOutboxEntry.class));
+        assertThat(readEntries.getAllValues().get(1).getQueryObject().get("claimId"))
+                .isEqualTo(claim.getValue().getUpdateObject().get("$set", Document.class).get("claimId"));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getDeletedEntryIds() {
+        ArgumentCaptor<Iterable<String>> deletedEntryIds = ArgumentCaptor.forClass(Iterable.class);
+        verify(statementOutboxEntryRepository, atLeastOnce())
+                .deleteAllById(deletedEntryIds.capture());
+        List<String> entryIds = new ArrayList<>();
+        deletedEntryIds.getAllValues().forEach(ids -> ids.forEach(entryIds::add));
+        return entryIds;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getStoredStatementIds() {
+        ArgumentCaptor<List<Statement>> storedStatements = ArgumentCaptor.forClass(List.class);
+        verify(statementsApi, atLeastOnce()).storeStatements(storedStatements.capture());
+        return storedStatements.getAllValues().stream()
+                .flatMap(List::stream)
+                .map(Statement::getId)
+                .toList();
+    }
+
+    private StatementOutboxEntry entry(String id) {
+        try {
+            return new StatementOutboxEntry(id, objectMapper.writeValueAsString(new Statement().id(id)),
+                    LocalDateTime.of(2024, 1, 1, 12, 0), "claim", LocalDateTime.of(2024, 1, 1, 12, 1));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import de.tud.tas.backend.app.exceptions.StatementBatchTooLargeException;
+import de.tud.tas.backend.app.exceptions.StatementQueueFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class StatementIngestionServiceImplTest {
+    private StatementIngestionServiceImpl statementIngestionService;
+
+    @BeforeEach
+    void setUp() {
+        statementIngestionService = new StatementIngestionServiceImpl(mock(TudAssistanceBackboneService.class));
+        statementIngestionService.setStatementIngestionTaskExecutor(new SyncTaskExecutor());
+        ReflectionTestUtils.setField(statementIngestionService, "enabled", true);
+        ReflectionTestUtils.setField(statementIngestionService, "queueCapacity", 10);
+        // Without workers the queued statements stay in the queue
+        ReflectionTestUtils.setField(statementIngestionService, "numberOfWorkers", 0);
+        ReflectionTestUtils.setField(statementIngestionService, "batchSize", 10);
+        ReflectionTestUtils.setField(statementIngestionService, "offerTimeout", 0L);
+        statementIngestionService.startWorkers();
+    }
+
+    @Test
+    void rejectsBatchExceedingTheRemainingCapacityWithoutQueueingAnyStatement() {
+        statementIngestionService.acceptStatements(statements(8));
+
+        assertThatThrownBy(() -> statementIngestionService.acceptStatements(statements(3)))
+                .isInstanceOf(StatementQueueFullException.class);
+        assertThat(queuedStatements()).hasSize(8);
+
+        statementIngestionService.acceptStatements(statements(2));
+        assertThat(queuedStatements()).hasSize(10);
+        assertThatThrownBy(() -> statementIngestionService.acceptStatement(statements(1).get(0)))
+                .isInstanceOf(StatementQueueFullException.class);
+    }
+
+    @Test
+    void rejectsBatchExceedingTheCapacityOfTheQueue() {
+        assertThatThrownBy(() -> statementIngestionService.acceptStatements(statements(11)))
+                .isInstanceOf(StatementBatchTooLargeException.class);
+        assertThat(queuedStatements()).isEmpty();
+    }
+
+    @Test
+    void waitsForFreeCapacityBeforeRejectingABatch() throws InterruptedException {
+        ReflectionTestUtils.setField(statementIngestionService, "offerTimeout", 5000L);
+        statementIngestionService.acceptStatements(statements(8));
+        Thread worker = new Thread(() -> {
+            Semaphore statementQueuePermits = (Semaphore) ReflectionTestUtils.getField(
+                    statementIngestionService, "statementQueuePermits");
+            // Simulates a worker taking statements from the queue
+            queuedStatements().stream().limit(2).forEach(statement -> {
+                ((Collection<?>) ReflectionTestUtils.getField(statementIngestionService, "statementQueue"))
+                        .remove(statement);
+                statementQueuePermits.release();
+            });
+        });
+        worker.start();
+
+        statementIngestionService.acceptStatements(statements(4));
+
+        worker.join();
+        assertThat(queuedStatements()).hasSize(10);
+    }
+
+    @Test
+    void queuesConcurrentBatchesEitherCompletelyOrNotAtAll() throws InterruptedException {
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger numberOfAcceptedStatements = new AtomicInteger();
+        for (int i = 0; i < 8; i++) {
+            executorService.execute(() -> {
+                try {
+                    start.await();
+                    statementIngestionService.acceptStatements(statements(3));
+                    numberOfAcceptedStatements.addAndGet(3);
+                } catch (StatementQueueFullException e) {
+                    // The batch was rejected completely
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+        start.countDown();
+        executorService.shutdown();
+        assertThat(executorService.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(numberOfAcceptedStatements.get()).isEqualTo(9);
+        assertThat(queuedStatements()).hasSize(9);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Collection<JsonNode> queuedStatements() {
+        return new ArrayList<>((Collection<JsonNode>) ReflectionTestUtils.getField(
+                statementIngestionService, "statementQueue"));
+    }
+
+    private static List<JsonNode> statements(int numberOfStatements) {
+        return IntStream.range(0, numberOfStatements)
+                .mapToObj(i -> (JsonNode) JsonNodeFactory.instance.objectNode().put("id", "statement-" + i))
+                .toList();
+    }
+}
@@ -0,0 +1,81 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import de.tud.tas.backend.tud_assistance_backbone_api_client.ApiClient;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.api.ProvisioningApi;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceType;
+import de.tud.tas.backend.tud_assistance_backbone_api_client.model.AssistanceTypeList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestClientResponseException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SupportedAssistanceTypeServiceImplTest {
+    private ProvisioningApi provisioningApi;
+    private SupportedAssistanceTypeServiceImpl supportedAssistanceTypeService;
+
+    @BeforeEach
+    void setUp() {
+        provisioningApi = mock(ProvisioningApi.class);
+        when(provisioningApi.getApiClient()).thenReturn(mock(ApiClient.class));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setETag("\"1\"");
+        when(provisioningApi.getSupportedAssistanceTypesWithHttpInfo(any(), any(), any()))
+                .thenReturn(new ResponseEntity<>(new AssistanceTypeList()
+                        .addTypesItem(new AssistanceType().key("quiz")), headers, HttpStatus.OK));
+        supportedAssistanceTypeService = new SupportedAssistanceTypeServiceImpl(
+                mock(ApplicationEventPublisher.class), new SimpleMeterRegistry());
+        supportedAssistanceTypeService.setConditionalProvisioningApi(provisioningApi);
+        supportedAssistanceTypeService.registerMetrics();
+        supportedAssistanceTypeService.refreshSupportedAssistanceTypes();
+    }
+
+    @Test
+    void keepsTheReplicaIfTheAssistanceTypesWereNotModified() {
+        when(provisioningApi.getSupportedAssistanceTypesWithHttpInfo(any(), any(), any()))
+                .thenThrow(new RestClientResponseException(HttpStatus.NOT_MODIFIED.toString(),
+                        HttpStatus.NOT_MODIFIED.value(), "Not Modified", null, null, null));
+
+        supportedAssistanceTypeService.refreshSupportedAssistanceTypes();
+
+        assertThat(supportedAssistanceTypeService.getSupportedAssistanceTypes())
+                .extracting(AssistanceType::getKey)
+                .containsExactly("quiz");
+    }
+
+    @Test
+    void reportsOtherFailuresWhoseMessageMentionsTheStatus() {
+        when(provisioningApi.getSupportedAssistanceTypesWithHttpInfo(any(), any(), any()))
+                .thenThrow(new RestClientException("API returned 304 NOT_MODIFIED"));
+
+        assertThatThrownBy(() -> supportedAssistanceTypeService.refreshSupportedAssistanceTypes())
+                .isInstanceOf(RestClientException.class);
+    }
+}
@@ -0,0 +1,121 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import de.tud.tas.backend.app.exceptions.UserNotFoundException;
+import de.tud.tas.backend.app.model.User;
+import de.tud.tas.backend.app.model.UserLanguage;
+import de.tud.tas.backend.app.model.UserRole;
+import de.tud.tas.backend.app.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceImplTest {
+    private final UUID userId = UUID.randomUUID();
+
+    private UserRepository userRepository;
+    private UserServiceImpl userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findById(userId)).thenAnswer(invocation -> Optional.of(createUser(UserRole.STUDENT)));
+        when(userRepository.findByActorAccountName("learner"))
+                .thenAnswer(invocation -> Optional.of(createUser(UserRole.STUDENT)));
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        userService = new UserServiceImpl(new SimpleMeterRegistry(), userRepository, mock(PasswordEncoder.class));
+        ReflectionTestUtils.setField(userService, "userCacheMaximumSize", 100L);
+        ReflectionTestUtils.setField(userService, "userCacheTtl", 300L);
+        userService.initUserCache();
+    }
+
+    @Test
+    void cachesUsersByIdAndActorAccountName() {
+        userService.getUser(userId);
+        userService.getUserByActorAccountName("learner");
+        userService.getUserByIdOrActorAccountName("learner");
+
+        verify(userRepository).findById(userId);
+        verify(userRepository).findByActorAccountName("learner");
+    }
+
+    @Test
+    void evictsADeletedUserThatIsOnlyCachedById() {
+        userService.getUser(userId);
+
+        userService.deleteUser("learner");
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> userService.getUser(userId)).isInstanceOf(UserNotFoundException.class);
+        verify(userRepository, times(2)).findById(userId);
+    }
+
+    @Test
+    void evictsAnUpdatedUserThatWasLoadedByActorAccountName() {
+        assertThat(userService.getUserByActorAccountName("learner").getRole()).isEqualTo(UserRole.STUDENT);
+
+        userService.updateUserRole(userId, UserRole.ADMIN);
+        when(userRepository.findById(userId)).thenAnswer(invocation -> Optional.of(createUser(UserRole.ADMIN)));
+
+        assertThat(userService.getUserByActorAccountName("learner").getRole()).isEqualTo(UserRole.ADMIN);
+    }
+
+    @Test
+    void readsTheUserFromTheDatabaseOnLogin() {
+        userService.getUserByActorAccountName("learner");
+        // Like a role change made by another instance, which does not invalidate the cache of this instance
+        when(userRepository.findByActorAccountName("learner"))
+                .thenAnswer(invocation -> Optional.of(createUser(UserRole.ADMIN)));
+
+        assertThat(userService.getUserByActorAccountNameOrAddUser("learner").getRole()).isEqualTo(UserRole.ADMIN);
+    }
+
+    @Test
+    void reloadsTheIdOfAUserDeletedAndAddedAgainByAnotherInstance() {
+        userService.getUserByActorAccountName("learner");
+        // Another instance deletes the user and adds it again with a new ID
+        UUID newUserId = UUID.randomUUID();
+        User newUser = new User(newUserId, "learner", UserLanguage.DE, UserRole.STUDENT);
+        when(userRepository.findById(userId)).thenReturn(Optional.empty());
+        when(userRepository.findById(newUserId)).thenReturn(Optional.of(newUser));
+        when(userRepository.findByActorAccountName("learner")).thenReturn(Optional.of(newUser));
+        // The user expired from the cache by ID, while its ID is still cached by actor account name
+        ((Cache<?, ?>) ReflectionTestUtils.getField(userService, "usersById")).invalidateAll();
+
+        assertThat(userService.getUserByActorAccountName("learner").getId()).isEqualTo(newUserId);
+    }
+
+    private User createUser(UserRole role) {
+        return new User(userId, "learner", UserLanguage.DE, role);
+    }
+}
@@ -0,0 +1,195 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import de.tud.tas.backend.app.model.ClusterMessage;
+import de.tud.tas.backend.app.model.WebSocketConnection;
+import de.tud.tas.backend.app.repository.WebSocketConnectionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketConnectionServiceImplTest {
+    private static final String LEARNER = "learner";
+    private static final String DESTINATION = "/queue/chat/context";
+
+    private final Clock clock = Clock.fixed(Instant.parse("2024-01-01T12:00:00Z"), ZoneOffset.UTC);
+    /**
+     * The connections of all instances, shared by the instances like the collection of the connections.
+     */
+    private final List<WebSocketConnection> connections = new ArrayList<>();
+
+    private WebSocketConnectionRepository webSocketConnectionRepository;
+    private Instance firstInstance;
+    private Instance secondInstance;
+
+    @BeforeEach
+    void setUp() {
+        webSocketConnectionRepository = mock(WebSocketConnectionRepository.class);
+        when(webSocketConnectionRepository.findAllByUserName(anyString())).thenAnswer(invocation -> connections
+                .stream()
+                .filter(connection -> connection.getUserName().equals(invocation.getArgument(0)))
+                .toList());
+        firstInstance = new Instance();
+        secondInstance = new Instance();
+    }
+
+    @Test
+    void routesTheMessageToTheInstanceTheLearnerIsConnectedTo() {
+        secondInstance.connect("session");
+
+        firstInstance.service.sendToUser(LEARNER, DESTINATION, Map.of("aoId", "1"));
+        firstInstance.forwardClusterMessagesTo(secondInstance);
+
+        verify(firstInstance.simpMessagingTemplate, never()).send(anyString(), any(Message.class));
+        verify(secondInstance.simpMessagingTemplate).send(eq("/user/" + LEARNER + DESTINATION), any(Message.class));
+    }
+
+    @Test
+    void deliversTheMessageOncePerInstanceTheLearnerIsConnectedTo() {
+        firstInstance.connect("first-session");
+        secondInstance.connect("second-session");
+        secondInstance.connect("third-session");
+
+        firstInstance.service.sendToUser(LEARNER, DESTINATION, Map.of("aoId", "1"));
+        List<ClusterMessage> clusterMessages = firstInstance.forwardClusterMessagesTo(secondInstance);
+
+        // The broker of an instance delivers a user destination to all sessions of the user
+        assertThat(clusterMessages).hasSize(1);
+        verify(firstInstance.simpMessagingTemplate).send(eq("/user/" + LEARNER + DESTINATION), any(Message.class));
+        verify(secondInstance.simpMessagingTemplate).send(eq("/user/" + LEARNER + DESTINATION), any(Message.class));
+    }
+
+    @Test
+    void leavesTheDeliveryToOtherInstancesToTheExternalBroker() {
+        // Stand-in for the external broker, which delivers a user destination to the sessions on all instances
+        List<Message<?>> brokerMessages = new ArrayList<>();
+        MessageChannel standInBroker = (message, timeout) -> brokerMessages.add(message);
+        Instance firstRelayInstance = new Instance(new SimpMessagingTemplate(standInBroker), true);
+        Instance secondRelayInstance = new Instance(new SimpMessagingTemplate(standInBroker), true);
+        secondRelayInstance.connect("session");
+
+        firstRelayInstance.service.sendToUser(LEARNER, DESTINATION, Map.of("aoId", "1"));
+
+        assertThat(brokerMessages).hasSize(1);
+        assertThat(brokerMessages.get(0).getHeaders().get("simpDestination")).isEqualTo("/user/" + LEARNER + DESTINATION);
+        verify(firstRelayInstance.mongoTemplate, never()).insert(any(Collection.class), eq(ClusterMessage.class));
+    }
+
+    @Test
+    void deliversTheMessageLocallyWithoutCluster() {
+        Instance instance = new Instance(mock(SimpMessagingTemplate.class), false);
+        ReflectionTestUtils.setField(instance.service, "clusterEnabled", false);
+        when(instance.simpMessagingTemplate.getUserDestinationPrefix()).thenReturn("/user/");
+
+        instance.service.sendToUser(LEARNER, DESTINATION, Map.of("aoId", "1"));
+
+        verify(instance.simpMessagingTemplate).send(eq("/user/" + LEARNER + DESTINATION), any(Message.class));
+        verifyNoInteractions(instance.mongoTemplate, webSocketConnectionRepository);
+    }
+
+    @Test
+    void checksTheBatchingFlagOfTheLocalConnectionsOfTheUser() {
+        Instance instance = new Instance(mock(SimpMessagingTemplate.class), false);
+        ReflectionTestUtils.setField(instance.service, "clusterEnabled", false);
+        instance.service.registerConnection("first-session", LEARNER, true);
+        instance.service.registerConnection("second-session", LEARNER, false);
+        instance.service.registerConnection("third-session", "other-learner", true);
+
+        assertThat(instance.service.isBatchingAccepted(LEARNER)).isFalse();
+        assertThat(instance.service.isBatchingAccepted("other-learner")).isTrue();
+
+        instance.service.unregisterConnection("second-session");
+        instance.service.unregisterConnection("third-session");
+
+        assertThat(instance.service.isBatchingAccepted(LEARNER)).isTrue();
+        assertThat(instance.service.isBatchingAccepted("other-learner")).isFalse();
+        verifyNoInteractions(webSocketConnectionRepository);
+    }
+
+    private class Instance {
+        private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        private final SimpMessagingTemplate simpMessagingTemplate;
+        private final SimpUserRegistry simpUserRegistry = mock(SimpUserRegistry.class);
+        private final WebSocketConnectionServiceImpl service;
+
+        private Instance() {
+            this(mock(SimpMessagingTemplate.class), false);
+            when(simpMessagingTemplate.getUserDestinationPrefix()).thenReturn("/user/");
+        }
+
+        private Instance(SimpMessagingTemplate simpMessagingTemplate, boolean brokerRelayEnabled) {
+            this.simpMessagingTemplate = simpMessagingTemplate;
+            service = new WebSocketConnectionServiceImpl(clock, mongoTemplate, new ObjectMapper(),
+                    simpMessagingTemplate, simpUserRegistry, webSocketConnectionRepository);
+            ReflectionTestUtils.setField(service, "clusterEnabled", true);
+            ReflectionTestUtils.setField(service, "brokerRelayEnabled", brokerRelayEnabled);
+        }
+
+        private void connect(String sessionId) {
+            service.registerConnection(sessionId, LEARNER, false);
+            connections.add(new WebSocketConnection(sessionId, LEARNER,
+                    (String) ReflectionTestUtils.getField(service, "instanceId"), false, clock.instant()));
+            when(simpUserRegistry.getUser(LEARNER)).thenReturn(mock(SimpUser.class));
+        }
+
+        @SuppressWarnings("unchecked")
+        private List<ClusterMessage> forwardClusterMessagesTo(Instance instance) {
+            ArgumentCaptor<Collection<ClusterMessage>> insertedClusterMessages =
+                    ArgumentCaptor.forClass(Collection.class);
+            verify(mongoTemplate).insert(insertedClusterMessages.capture(), eq(ClusterMessage.class));
+            List<ClusterMessage> clusterMessages = List.copyOf(insertedClusterMessages.getValue());
+            assertThat(clusterMessages).extracting(ClusterMessage::getTargetInstanceId)
+                    .containsOnly((String) ReflectionTestUtils.getField(instance.service, "instanceId"));
+            // Like the change stream of the target instance, which only receives the messages addressed to it
+            for (ClusterMessage clusterMessage : clusterMessages) {
+                org.springframework.data.mongodb.core.messaging.Message<Object, ClusterMessage> message =
+                        mock(org.springframework.data.mongodb.core.messaging.Message.class);
+                when(message.getBody()).thenReturn(clusterMessage);
+                ReflectionTestUtils.invokeMethod(instance.service, "handleClusterMessage", message);
+            }
+            return clusterMessages;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamHelperTest {
+    private record Element(String key, String source) {
+    }
+
+    private static final Function<Element, Object> KEY = Element::key;
+
+    @Test
+    void isContainedInCollectionMatchesByKey() {
+        List<Element> collection = List.of(new Element("a", "base"), new Element("b", "base"));
+
+        assertThat(List.of(new Element("b", "other"), new Element("c", "other"), new Element("a", "other"))
+                .stream()
+                .filter(StreamHelper.isContainedInCollection(collection, KEY))
+                .map(Element::key))
+                .containsExactly("b", "a");
+    }
+
+    @Test
+    void isNotContainedInCollectionMatchesByKey() {
+        List<Element> collection = List.of(new Element("a", "base"), new Element("b", "base"));
+
+        assertThat(List.of(new Element("b", "other"), new Element("c", "other"), new Element("d", "other"))
+                .stream()
+                .filter(StreamHelper.isNotContainedInCollection(collection, KEY))
+                .map(Element::key))
+                .containsExactly("c", "d");
+    }
+
+    @Test
+    void predicatesUseTheCollectionAtCreationTime() {
+        List<Element> collection = new ArrayList<>(List.of(new Element("a", "base")));
+        Predicate<Element> isContained = StreamHelper.isContainedInCollection(collection, KEY);
+        collection.add(new Element("b", "base"));
+
+        assertThat(isContained.test(new Element("a", "other"))).isTrue();
+        assertThat(isContained.test(new Element("b", "other"))).isFalse();
+    }
+
+    @Test
+    void predicatesMatchNullKeys() {
+        List<Element> collection = List.of(new Element(null, "base"));
+
+        assertThat(StreamHelper.isContainedInCollection(collection, KEY).test(new Element(null, "other"))).isTrue();
+        assertThat(StreamHelper.isNotContainedInCollection(collection, KEY).test(new Element(null, "other")))
+                .isFalse();
+        assertThat(StreamHelper.isContainedInCollection(collection, KEY).test(new Element("a", "other"))).isFalse();
+    }
+
+    @Test
+    void mergeByKeyPrefersElementsOfThePreferredCollectionAndKeepsTheOrder() {
+        List<Element> preferred = List.of(new Element("c", "preferred"), new Element("x", "preferred"),
+                new Element("a", "preferred"));
+        List<Element> base = List.of(new Element("a", "base"), new Element("b", "base"), new Element("c", "base"),
+                new Element("d", "base"));
+
+        assertThat(StreamHelper.mergeByKey(preferred, base, KEY)).containsExactly(
+                new Element("c", "preferred"), new Element("a", "preferred"),
+                new Element("b", "base"), new Element("d", "base"));
+    }
+
+    @Test
+    void mergeByKeyKeepsElementsWithDuplicateKeys() {
+        List<Element> preferred = List.of(new Element("a", "preferred-1"), new Element("a", "preferred-2"));
+        List<Element> base = List.of(new Element("a", "base"), new Element("b", "base-1"),
+                new Element("b", "base-2"));
+
+        assertThat(StreamHelper.mergeByKey(preferred, base, KEY)).containsExactly(
+                new Element("a", "preferred-1"), new Element("a", "preferred-2"),
+                new Element("b", "base-1"), new Element("b", "base-2"));
+    }
+
+    @Test
+    void mergeByKeyMatchesNullKeys() {
+        List<Element> preferred = List.of(new Element(null, "preferred"));
+        List<Element> base = List.of(new Element(null, "base"), new Element("a", "base"));
+
+        assertThat(StreamHelper.mergeByKey(preferred, base, KEY)).containsExactly(
+                new Element(null, "preferred"), new Element("a", "base"));
+    }
+
+    @Test
+    void mergeByKeyHandlesEmptyCollections() {
+        List<Element> base = List.of(new Element("a", "base"));
+
+        assertThat(StreamHelper.mergeByKey(List.of(), base, KEY)).containsExactly(new Element("a", "base"));
+        assertThat(StreamHelper.mergeByKey(base, List.of(), KEY)).isEmpty();
+    }
+}
@@ -0,0 +1,98 @@
+/****************************************************************************************
+ *  TUD TAS Backend for the assistance system developed as part of the VerDatAs project
+ *  Copyright (C) 2022-2024 TU Dresden (Sebastian Kucharski)
+ *
+ *  This program is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  This program is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ ***************************************************************************************/
+package de.tud.tas.backend.app.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares the concurrency ceiling of the default executors with the one of the virtual thread executors under a
+ * load of blocking tasks, like requests waiting for the TUD Assistance Backbone.
+ */
+class VirtualThreadConfigTest {
+    private static final int NUMBER_OF_TASKS = 512;
+    private static final Duration BLOCKING_TIME = Duration.ofMillis(100);
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfigTest.class);
+
+    @Test
+    void poolOfPlatformThreadsLimitsTheConcurrency() throws InterruptedException {
+        // Like the default of the application task executor
+        ThreadPoolTaskExecutor taskExecutor = new TaskExecutorBuilder()
+                .corePoolSize(16)
+                .maxPoolSize(16)
+                .queueCapacity(NUMBER_OF_TASKS)
+                .build();
+        taskExecutor.initialize();
+        try {
+            assertThat(runBlockingTasks("platform thread pool", taskExecutor)).isEqualTo(16);
+        } finally {
+            taskExecutor.shutdown();
+        }
+    }
+
+    @Test
+    void virtualThreadsRemoveTheConcurrencyCeiling() throws InterruptedException {
+        assertThat(runBlockingTasks("virtual threads",
+                VirtualThreadConfig.createVirtualThreadTaskExecutor("unlimited-", 0)))
+                .isGreaterThan(256);
+    }
+
+    @Test
+    void virtualThreadsKeepTheConcurrencyLimit() throws InterruptedException {
+        assertThat(runBlockingTasks("virtual threads limited to 256",
+                VirtualThreadConfig.createVirtualThreadTaskExecutor("limited-", 256)))
+                .isEqualTo(256);
+    }
+
+    private static int runBlockingTasks(String name, TaskExecutor taskExecutor) throws InterruptedException {
+        AtomicInteger concurrency = new AtomicInteger();
+        AtomicInteger maxConcurrency = new AtomicInteger();
+        CountDownLatch finishedTasks = new CountDownLatch(NUMBER_OF_TASKS);
+        long start = System.nanoTime();
+        for (int i = 0; i < NUMBER_OF_TASKS; i++) {
+            taskExecutor.execute(() -> {
+                maxConcurrency.accumulateAndGet(concurrency.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(BLOCKING_TIME.toMillis());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    concurrency.decrementAndGet();
+                    finishedTasks.countDown();
+                }
+            });
+        }
+        assertThat(finishedTasks.await(1, TimeUnit.MINUTES)).isTrue();
+        log.info("{}: {} tasks blocking for {} ms each finished after {} ms with a concurrency of {}", name,
+                NUMBER_OF_TASKS, BLOCKING_TIME.toMillis(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                maxConcurrency.get());
+        return maxConcurrency.get();
+    }
+}